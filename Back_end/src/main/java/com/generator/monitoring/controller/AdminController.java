@@ -3,6 +3,8 @@ package com.generator.monitoring.controller;
 import com.generator.monitoring.dto.*;
 import com.generator.monitoring.service.AdminService;
 import com.generator.monitoring.service.DeviceService;
+import com.generator.monitoring.service.PredictionSchedulerService;
+import com.generator.monitoring.service.TelemetryIngestService;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +28,12 @@ public class AdminController {
     @Autowired
     private DeviceService deviceService;
 
+    @Autowired
+    private TelemetryIngestService telemetryIngestService;
+
+    @Autowired
+    private PredictionSchedulerService predictionSchedulerService;
+
     // ========== AUTH ENDPOINTS ==========
 
     @PostMapping("/login")
@@ -266,6 +274,26 @@ public class AdminController {
         ));
     }
 
+    // ========== METRICS ENDPOINTS ==========
+
+    @GetMapping("/metrics/ingest")
+    public ResponseEntity<List<PipelineStageMetrics>> getIngestMetrics(Authentication authentication) {
+        if (!isAdminAuthenticated(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(telemetryIngestService.getMetrics());
+    }
+
+    @GetMapping("/metrics/predictions")
+    public ResponseEntity<PredictionRunMetrics> getPredictionMetrics(Authentication authentication) {
+        if (!isAdminAuthenticated(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(predictionSchedulerService.getMetrics());
+    }
+
     private boolean isAdminAuthenticated(Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated()) {
             return false;
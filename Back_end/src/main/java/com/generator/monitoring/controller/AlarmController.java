@@ -0,0 +1,59 @@
+package com.generator.monitoring.controller;
+
+import com.generator.monitoring.dto.AlarmEventDto;
+import com.generator.monitoring.enums.AlarmSource;
+import com.generator.monitoring.exception.DeviceAccessDeniedException;
+import com.generator.monitoring.service.AdminService;
+import com.generator.monitoring.service.AlarmEventService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/alarms")
+public class AlarmController {
+
+    @Autowired
+    private AlarmEventService alarmEventService;
+
+    @Autowired
+    private AdminService adminService;
+
+    /**
+     * Page through stored alarm events, newest first.
+     * Example: /api/alarms?deviceId=GEN-001&severity=CRITICAL&startTime=2024-01-01T00:00:00&endTime=2024-01-08T00:00:00
+     * Without deviceId the events of all devices are returned, which requires an admin login.
+     */
+    @GetMapping
+    public ResponseEntity<Page<AlarmEventDto>> getAlarmEvents(
+            @RequestParam(required = false) String deviceId,
+            @RequestParam(required = false) String parameter,
+            @RequestParam(required = false) String severity,
+            @RequestParam(required = false) String state,
+            @RequestParam(required = false) AlarmSource source,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            Authentication authentication) {
+        if ((deviceId == null || deviceId.isBlank()) && !isAdminAuthenticated(authentication)) {
+            throw new DeviceAccessDeniedException("Alarm events of all devices require an admin login");
+        }
+
+        Page<AlarmEventDto> events = alarmEventService.searchEvents(
+                deviceId, parameter, severity, state, source, startTime, endTime, page, size);
+        return ResponseEntity.ok(events);
+    }
+
+    private boolean isAdminAuthenticated(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return false;
+        }
+        return adminService.isAdmin(authentication.getName());
+    }
+}
@@ -4,6 +4,7 @@ import com.generator.monitoring.dto.*;
 import com.generator.monitoring.entity.Device;
 import com.generator.monitoring.enums.ThresholdParameter;
 import com.generator.monitoring.service.DeviceService;
+import com.generator.monitoring.service.LatestTelemetryCache;
 import com.generator.monitoring.service.ThresholdService;
 import com.generator.monitoring.service.VerificationService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +26,9 @@ public class DeviceController {
     @Autowired
     private ThresholdService thresholdService;
 
+    @Autowired
+    private LatestTelemetryCache latestTelemetryCache;
+
     @Autowired
     private VerificationService verificationService;
 
@@ -76,6 +80,20 @@ public class DeviceController {
         return ResponseEntity.ok(device);
     }
 
+    @GetMapping("/{deviceId}/latest")
+    public ResponseEntity<TelemetrySnapshot> getLatestTelemetry(@PathVariable String deviceId) {
+        // Public endpoint - no authentication required
+        TelemetrySnapshot snapshot = latestTelemetryCache.get(deviceId);
+        return snapshot != null ? ResponseEntity.ok(snapshot) : ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/{deviceId}/alarms/active")
+    public ResponseEntity<List<AlarmData>> getActiveAlarms(@PathVariable String deviceId) {
+        // Public endpoint - lets dashboards load the current alarms before the first transition arrives
+        deviceService.getDeviceEntityByDeviceId(deviceId);
+        return ResponseEntity.ok(thresholdService.getActiveAlarms(deviceId));
+    }
+
     @GetMapping("/{deviceId}/thresholds")
     public ResponseEntity<List<ThresholdDto>> getDeviceThresholds(
             @PathVariable String deviceId,
@@ -1,21 +1,37 @@
 package com.generator.monitoring.controller;
 
+import com.generator.monitoring.dto.ColumnarHistory;
 import com.generator.monitoring.dto.HistoryDataPoint;
+import com.generator.monitoring.dto.HistoryPage;
 import com.generator.monitoring.dto.HistoryQueryRequest;
+import com.generator.monitoring.dto.ReportJobDto;
+import com.generator.monitoring.dto.RetentionProgress;
+import com.generator.monitoring.enums.AggregateFunction;
+import com.generator.monitoring.enums.ReportMode;
+import com.generator.monitoring.enums.TelemetryParameter;
+import com.generator.monitoring.exception.InvalidInputException;
+import com.generator.monitoring.entity.Device;
+import com.generator.monitoring.service.AdminService;
+import com.generator.monitoring.service.HistoryExportService;
 import com.generator.monitoring.service.HistoryService;
 import com.generator.monitoring.service.PdfReportService;
+import com.generator.monitoring.service.ReportJobService;
 import com.generator.monitoring.service.TelemetryCleanupService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +41,7 @@ import java.util.Map;
 public class HistoryController {
 
     private static final Logger logger = LoggerFactory.getLogger(HistoryController.class);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     @Autowired
     private HistoryService historyService;
@@ -32,14 +49,39 @@ public class HistoryController {
     @Autowired
     private PdfReportService pdfReportService;
 
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private HistoryExportService historyExportService;
+
     @Autowired
     private TelemetryCleanupService cleanupService;
 
+    @Autowired
+    private AdminService adminService;
+
     /**
      * Query historical data
+     * With stream=ndjson or stream=json the rows are written as they are read from the database.
+     * With format=columnar the response is a ColumnarHistory (delta=true delta-encodes the timestamps);
+     * send Accept: application/cbor to get it as binary CBOR instead of JSON.
      */
     @PostMapping("/query")
-    public ResponseEntity<List<HistoryDataPoint>> queryHistory(@RequestBody HistoryQueryRequest request) {
+    public ResponseEntity<?> queryHistory(@RequestBody HistoryQueryRequest request,
+                                          @RequestParam(required = false) String stream,
+                                          @RequestParam(defaultValue = "rows") String format,
+                                          @RequestParam(defaultValue = "false") boolean delta) {
+        if (stream != null) {
+            return streamHistory(request.getDeviceId(), request.getParsedStartTime(), request.getParsedEndTime(),
+                    request.getParameters(), stream);
+        }
+        if (isColumnar(format)) {
+            historyService.validateQuery(request.getDeviceId(), request.getParsedStartTime(), request.getParsedEndTime());
+            return ResponseEntity.ok(historyService.queryHistoryColumnar(request.getDeviceId(),
+                    request.getParsedStartTime(), request.getParsedEndTime(), request.getParameters(), delta));
+        }
+
         try {
             LocalDateTime startTime = request.getParsedStartTime();
             LocalDateTime endTime = request.getParsedEndTime();
@@ -65,13 +107,26 @@ public class HistoryController {
 
     /**
      * Get historical data with query parameters
+     * Supports the same stream, format and delta options as the query endpoint
      */
     @GetMapping("/data/{deviceId}")
-    public ResponseEntity<List<HistoryDataPoint>> getHistory(
+    public ResponseEntity<?> getHistory(
             @PathVariable String deviceId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
-            @RequestParam(required = false) List<String> parameters) {
+            @RequestParam(required = false) List<String> parameters,
+            @RequestParam(required = false) String stream,
+            @RequestParam(defaultValue = "rows") String format,
+            @RequestParam(defaultValue = "false") boolean delta) {
+        if (stream != null) {
+            return streamHistory(deviceId, startTime, endTime, parameters, stream);
+        }
+        if (isColumnar(format)) {
+            historyService.validateQuery(deviceId, startTime, endTime);
+            return ResponseEntity.ok(historyService.queryHistoryColumnar(
+                    deviceId, startTime, endTime, parameters, delta));
+        }
+
         try {
             List<HistoryDataPoint> dataPoints = historyService.queryHistory(
                     deviceId, startTime, endTime, parameters
@@ -83,63 +138,274 @@ public class HistoryController {
     }
 
     /**
-     * Generate PDF report
+     * Query historical data one page at a time, newest first.
+     * Send the returned nextCursor as the cursor of the next request until it is null.
      */
-    @PostMapping("/report/pdf")
-    public ResponseEntity<byte[]> generatePdfReport(@RequestBody HistoryQueryRequest request) {
-        try {
-            LocalDateTime startTime = request.getParsedStartTime();
-            LocalDateTime endTime = request.getParsedEndTime();
+    @PostMapping("/query/page")
+    public ResponseEntity<HistoryPage> queryHistoryPage(@RequestBody HistoryQueryRequest request) {
+        HistoryPage page = historyService.queryHistoryPage(
+                request.getDeviceId(),
+                request.getParsedStartTime(),
+                request.getParsedEndTime(),
+                request.getParameters(),
+                request.getCursor(),
+                request.getLimit()
+        );
+        return ResponseEntity.ok(page);
+    }
 
-            logger.info("Generating PDF report for device: {}, startTime: {}, endTime: {}",
-                    request.getDeviceId(), startTime, endTime);
+    /**
+     * Get one page of historical data with query parameters
+     */
+    @GetMapping("/data/{deviceId}/page")
+    public ResponseEntity<HistoryPage> getHistoryPage(
+            @PathVariable String deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(required = false) List<String> parameters,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(historyService.queryHistoryPage(
+                deviceId, startTime, endTime, parameters, cursor, limit));
+    }
 
-            byte[] pdfBytes = pdfReportService.generateReport(
-                    request.getDeviceId(),
-                    startTime,
-                    endTime,
-                    request.getParameters()
-            );
+    /**
+     * True for format=columnar, false for the default format=rows
+     */
+    private static boolean isColumnar(String format) {
+        return switch (format.trim().toLowerCase()) {
+            case "columnar" -> true;
+            case "rows" -> false;
+            default -> throw new InvalidInputException("Unknown format: " + format + " (use rows or columnar)");
+        };
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment",
-                    "generator_report_" + request.getDeviceId() + "_" +
-                            System.currentTimeMillis() + ".pdf");
+    /**
+     * Stream history as NDJSON (one data point per line) or as a chunked JSON array.
+     * The query is validated first so that errors still get a proper status code.
+     */
+    private ResponseEntity<StreamingResponseBody> streamHistory(String deviceId, LocalDateTime startTime,
+                                                                LocalDateTime endTime, List<String> parameters,
+                                                                String stream) {
+        boolean ndjson = switch (stream.trim().toLowerCase()) {
+            case "ndjson" -> true;
+            case "json" -> false;
+            default -> throw new InvalidInputException("Unknown stream format: " + stream + " (use ndjson or json)");
+        };
 
-            logger.info("PDF report generated successfully for device: {}, size: {} bytes",
-                    request.getDeviceId(), pdfBytes.length);
+        historyService.validateQuery(deviceId, startTime, endTime);
 
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
-        } catch (Exception e) {
-            logger.error("Error generating PDF report for device {}: {}", request.getDeviceId(), e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        StreamingResponseBody body = out -> {
+            try {
+                historyService.streamHistory(deviceId, startTime, endTime, parameters, ndjson, out);
+            } catch (Exception e) {
+                // The status is already sent, so the client sees a truncated response
+                logger.error("Error streaming history for device {}: {}", deviceId, e.getMessage(), e);
+                throw e;
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Get time-bucketed aggregates, computed in the database
+     * Example: /api/history/aggregate/GEN-001?startTime=...&endTime=...&parameters=rpm&bucket=15m&function=max
+     * Without a bucket size one is chosen so that the range returns at most maxPoints buckets.
+     * Supports the same format and delta options as the query endpoint.
+     */
+    @GetMapping("/aggregate/{deviceId}")
+    public ResponseEntity<?> getAggregatedHistory(
+            @PathVariable String deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(required = false) List<String> parameters,
+            @RequestParam(required = false) String bucket,
+            @RequestParam(defaultValue = "1000") int maxPoints,
+            @RequestParam(defaultValue = "avg") String function,
+            @RequestParam(defaultValue = "rows") String format,
+            @RequestParam(defaultValue = "false") boolean delta) {
+
+        AggregateFunction aggregateFunction;
+        try {
+            aggregateFunction = AggregateFunction.valueOf(function.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("Unknown aggregate function: " + function);
+        }
+
+        long bucketSeconds = bucket != null
+                ? HistoryService.parseBucketSeconds(bucket)
+                : HistoryService.chooseBucketSeconds(startTime, endTime, maxPoints);
+
+        List<HistoryDataPoint> dataPoints = historyService.aggregateHistory(
+                deviceId, startTime, endTime, parameters, bucketSeconds, aggregateFunction);
+        if (isColumnar(format)) {
+            ColumnarHistory columnar = historyService.toColumnar(dataPoints, parameters, delta);
+            return ResponseEntity.ok(columnar);
         }
+        return ResponseEntity.ok(dataPoints);
+    }
+
+    /**
+     * Generate PDF report
+     * The PDF is written to the response while it is rendered
+     */
+    @PostMapping("/report/pdf")
+    public ResponseEntity<StreamingResponseBody> generatePdfReport(@RequestBody HistoryQueryRequest request,
+                                                                   @RequestParam(defaultValue = "table") String mode) {
+        LocalDateTime startTime = request.getParsedStartTime();
+        LocalDateTime endTime = request.getParsedEndTime();
+
+        logger.info("Generating PDF report for device: {}, startTime: {}, endTime: {}",
+                request.getDeviceId(), startTime, endTime);
+
+        return streamPdfReport(request.getDeviceId(), startTime, endTime, request.getParameters(), parseMode(mode));
     }
 
     /**
      * Get PDF report with query parameters
+     * mode=table (default) lists every sample, mode=summary renders statistics and charts
      */
     @GetMapping("/report/pdf/{deviceId}")
-    public ResponseEntity<byte[]> getPdfReport(
+    public ResponseEntity<StreamingResponseBody> getPdfReport(
             @PathVariable String deviceId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
-            @RequestParam(required = false) List<String> parameters) {
+            @RequestParam(required = false) List<String> parameters,
+            @RequestParam(defaultValue = "table") String mode) {
+        return streamPdfReport(deviceId, startTime, endTime, parameters, parseMode(mode));
+    }
+
+    private static ReportMode parseMode(String mode) {
         try {
-            byte[] pdfBytes = pdfReportService.generateReport(
-                    deviceId, startTime, endTime, parameters
-            );
+            return ReportMode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("Unknown report mode: " + mode + " (use table or summary)");
+        }
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment",
-                    "generator_report_" + deviceId + "_" + System.currentTimeMillis() + ".pdf");
+    private ResponseEntity<StreamingResponseBody> streamPdfReport(String deviceId, LocalDateTime startTime,
+                                                                  LocalDateTime endTime, List<String> parameters,
+                                                                  ReportMode mode) {
+        if (parameters == null || parameters.isEmpty()) {
+            throw new InvalidInputException("At least one parameter is required for a report");
+        }
+        historyService.validateQuery(deviceId, startTime, endTime);
 
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment",
+                "generator_report_" + deviceId + "_" + System.currentTimeMillis() + ".pdf");
+
+        StreamingResponseBody body = out -> {
+            try {
+                if (mode == ReportMode.SUMMARY) {
+                    pdfReportService.writeSummaryReport(deviceId, startTime, endTime, parameters, out);
+                } else {
+                    pdfReportService.writeReport(deviceId, startTime, endTime, parameters, out);
+                }
+                logger.info("PDF report streamed for device: {}", deviceId);
+            } catch (Exception e) {
+                // The status is already sent, so the client sees a truncated file
+                logger.error("Error generating PDF report for device {}: {}", deviceId, e.getMessage(), e);
+                throw e;
+            }
+        };
+
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Submit a PDF report to be generated in the background
+     * Poll the returned job until it is COMPLETED, then download it
+     */
+    @PostMapping("/report/jobs")
+    public ResponseEntity<ReportJobDto> submitReportJob(@RequestBody HistoryQueryRequest request,
+                                                        @RequestParam(defaultValue = "table") String mode) {
+        ReportJobDto job = reportJobService.submit(
+                request.getDeviceId(),
+                request.getParsedStartTime(),
+                request.getParsedEndTime(),
+                request.getParameters(),
+                parseMode(mode)
+        );
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    /**
+     * Get status and progress of a report job
+     */
+    @GetMapping("/report/jobs/{jobId}")
+    public ResponseEntity<ReportJobDto> getReportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(reportJobService.getJob(jobId));
+    }
+
+    /**
+     * Download the PDF of a completed report job
+     * Returns 409 with the job status while it is still queued or running
+     */
+    @GetMapping("/report/jobs/{jobId}/pdf")
+    public ResponseEntity<?> downloadReportJob(@PathVariable String jobId) {
+        Path file = reportJobService.getReportFile(jobId);
+        if (file == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(reportJobService.getJob(jobId));
         }
+
+        ReportJobDto job = reportJobService.getJob(jobId);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment",
+                "generator_report_" + job.getDeviceId() + "_" + System.currentTimeMillis() + ".pdf");
+
+        return new ResponseEntity<>(new FileSystemResource(file), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Bulk export history of one or many devices as CSV, streamed while the devices are read in parallel
+     * Example: /api/history/export?deviceIds=GEN-001,GEN-002&startTime=...&endTime=...&compress=gzip
+     * Without deviceIds all devices are exported, which requires an admin login; without parameters all
+     * parameters are. The time range is limited to export.max-range-days.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportHistory(
+            @RequestParam(required = false) List<String> deviceIds,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(required = false) List<String> parameters,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "none") String compress,
+            Authentication authentication) {
+        if (!"csv".equalsIgnoreCase(format.trim())) {
+            throw new InvalidInputException("Unknown export format: " + format + " (use csv)");
+        }
+        boolean gzip = switch (compress.trim().toLowerCase()) {
+            case "gzip" -> true;
+            case "none" -> false;
+            default -> throw new InvalidInputException("Unknown compression: " + compress + " (use none or gzip)");
+        };
+
+        List<Device> devices = historyExportService.resolveDevices(deviceIds, startTime, endTime,
+                isAdminAuthenticated(authentication));
+        TelemetryParameter[] selected = historyService.resolveParameters(parameters);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType("text/csv"));
+        headers.setContentDispositionFormData("attachment",
+                "telemetry_export_" + System.currentTimeMillis() + (gzip ? ".csv.gz" : ".csv"));
+
+        StreamingResponseBody body = out -> {
+            try {
+                historyExportService.exportCsv(devices, startTime, endTime, selected, gzip, out);
+            } catch (Exception e) {
+                // The status is already sent, so the client sees a truncated file
+                logger.error("Error exporting history of {} devices: {}", devices.size(), e.getMessage(), e);
+                throw e;
+            }
+        };
+
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
     /**
@@ -152,14 +418,15 @@ public class HistoryController {
 
     /**
      * Trigger manual cleanup
+     * The cleanup runs in the background; poll /cleanup/status for its progress
      */
     @PostMapping("/cleanup")
     public ResponseEntity<Map<String, Object>> triggerCleanup() {
         try {
-            int deletedCount = cleanupService.performManualCleanup();
-            return ResponseEntity.ok(Map.of(
-                    "message", "Cleanup completed successfully",
-                    "deletedRecords", deletedCount
+            RetentionProgress progress = cleanupService.performManualCleanup();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                    "message", "Cleanup started",
+                    "progress", progress
             ));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -167,6 +434,15 @@ public class HistoryController {
         }
     }
 
+    /**
+     * Get progress and delete rate of the current or last cleanup run
+     */
+    @GetMapping("/cleanup/status")
+    public ResponseEntity<RetentionProgress> getCleanupStatus() {
+        RetentionProgress progress = cleanupService.getProgress();
+        return progress != null ? ResponseEntity.ok(progress) : ResponseEntity.noContent().build();
+    }
+
     /**
      * Get count of old records
      */
@@ -211,4 +487,11 @@ public class HistoryController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    private boolean isAdminAuthenticated(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return false;
+        }
+        return adminService.isAdmin(authentication.getName());
+    }
 }
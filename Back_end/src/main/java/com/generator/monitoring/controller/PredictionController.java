@@ -1,12 +1,18 @@
 package com.generator.monitoring.controller;
 
 import com.generator.monitoring.dto.PredictionResponse;
+import com.generator.monitoring.dto.RefuelEventDto;
+import com.generator.monitoring.service.DeclineEstimatorService;
 import com.generator.monitoring.service.PredictionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/predictions")
 @RequiredArgsConstructor
@@ -15,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 public class PredictionController {
 
     private final PredictionService predictionService;
+    private final DeclineEstimatorService declineEstimatorService;
 
     /**
      * Get prediction data for a device
@@ -47,4 +54,18 @@ public class PredictionController {
             return ResponseEntity.internalServerError().body("Error collecting data: " + e.getMessage());
         }
     }
+
+    /**
+     * Detected refuels of a device, newest first; defaults to the last 30 days
+     * GET /api/predictions/{deviceId}/refuels?startTime=...&endTime=...
+     */
+    @GetMapping("/{deviceId}/refuels")
+    public ResponseEntity<List<RefuelEventDto>> getRefuels(
+            @PathVariable String deviceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+        LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
+        LocalDateTime start = startTime != null ? startTime : end.minusDays(30);
+        return ResponseEntity.ok(declineEstimatorService.getRefuelEvents(deviceId, start, end));
+    }
 }
@@ -16,4 +16,6 @@ public class AlarmData {
     private String severity; // WARNING, CRITICAL
     private Double value;
     private LocalDateTime timestamp;
+    private String label; // Phase or source of the value, e.g. L1-N, (Generator)
+    private String state; // RAISED, CLEARED
 }
@@ -0,0 +1,24 @@
+package com.generator.monitoring.dto;
+
+import com.generator.monitoring.enums.AlarmSource;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlarmEventDto {
+    private Long id;
+    private String deviceId;
+    private LocalDateTime timestamp;
+    private AlarmSource source;
+    private String parameter;
+    private String label;
+    private String severity;
+    private String state;
+    private String message;
+    private Double value;
+}
@@ -0,0 +1,24 @@
+package com.generator.monitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * History in column form: one timestamps array plus one value array per parameter,
+ * so parameter names are sent once instead of on every row.
+ * Timestamps are epoch milliseconds (UTC). With delta set, the first timestamp is
+ * absolute and every following one is the difference to its predecessor.
+ * Missing values are null at the row's index; numeric columns are held as primitive arrays (see HistoryColumn).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColumnarHistory {
+    private int rowCount;
+    private boolean delta;
+    private long[] timestamps;
+    private Map<String, HistoryColumn> columns;
+}
@@ -0,0 +1,126 @@
+package com.generator.monitoring.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.generator.monitoring.enums.TelemetryParameter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Values of one parameter in a ColumnarHistory, one entry per row.
+ * Numbers are kept in a primitive double[] or long[] with a bit set marking the rows that have a value;
+ * only boolean and text columns hold objects. Serialized as a plain array with null for missing values.
+ */
+@JsonSerialize(using = HistoryColumn.Serializer.class)
+public class HistoryColumn {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private double[] doubles;
+    private long[] longs;
+    private Object[] objects;
+    private final BitSet present = new BitSet();
+    private int size;
+
+    private HistoryColumn() {
+    }
+
+    public static HistoryColumn ofDoubles(int capacity) {
+        HistoryColumn column = new HistoryColumn();
+        column.doubles = new double[Math.max(capacity, 1)];
+        return column;
+    }
+
+    public static HistoryColumn ofLongs(int capacity) {
+        HistoryColumn column = new HistoryColumn();
+        column.longs = new long[Math.max(capacity, 1)];
+        return column;
+    }
+
+    public static HistoryColumn ofObjects(int capacity) {
+        HistoryColumn column = new HistoryColumn();
+        column.objects = new Object[Math.max(capacity, 1)];
+        return column;
+    }
+
+    /**
+     * Column for the values of a parameter read from the history table
+     */
+    public static HistoryColumn forValueType(TelemetryParameter.ValueType type) {
+        return type == TelemetryParameter.ValueType.NUMBER
+                ? ofDoubles(INITIAL_CAPACITY)
+                : ofObjects(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Append a value, null for a missing one; numbers must match the kind of the column
+     */
+    public void add(Object value) {
+        ensureCapacity();
+        if (value != null) {
+            if (doubles != null) {
+                doubles[size] = ((Number) value).doubleValue();
+            } else if (longs != null) {
+                longs[size] = ((Number) value).longValue();
+            } else {
+                objects[size] = value;
+            }
+            present.set(size);
+        }
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Value at a row, null when missing
+     */
+    public Object get(int row) {
+        if (!present.get(row)) {
+            return null;
+        }
+        if (doubles != null) {
+            return doubles[row];
+        }
+        return longs != null ? longs[row] : objects[row];
+    }
+
+    private void ensureCapacity() {
+        if (doubles != null && size == doubles.length) {
+            doubles = Arrays.copyOf(doubles, size * 2);
+        } else if (longs != null && size == longs.length) {
+            longs = Arrays.copyOf(longs, size * 2);
+        } else if (objects != null && size == objects.length) {
+            objects = Arrays.copyOf(objects, size * 2);
+        }
+    }
+
+    /**
+     * Writes the column as an array without boxing numeric values
+     */
+    public static class Serializer extends JsonSerializer<HistoryColumn> {
+        @Override
+        public void serialize(HistoryColumn column, JsonGenerator gen, SerializerProvider serializers)
+                throws IOException {
+            gen.writeStartArray(column, column.size);
+            for (int row = 0; row < column.size; row++) {
+                if (!column.present.get(row)) {
+                    gen.writeNull();
+                } else if (column.doubles != null) {
+                    gen.writeNumber(column.doubles[row]);
+                } else if (column.longs != null) {
+                    gen.writeNumber(column.longs[row]);
+                } else {
+                    serializers.defaultSerializeValue(column.objects[row], gen);
+                }
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.generator.monitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of history, newest first.
+ * Pass nextCursor back as the cursor to get the following page; it is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPage {
+    private List<HistoryDataPoint> data;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -18,6 +18,8 @@ public class HistoryQueryRequest {
     private String startTime;
     private String endTime;
     private List<String> parameters;
+    private String cursor; // Only used for paged queries
+    private Integer limit; // Only used for paged queries
 
     /**
      * Parse ISO-8601 timestamp to LocalDateTime
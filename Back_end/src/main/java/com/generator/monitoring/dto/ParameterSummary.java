@@ -0,0 +1,30 @@
+package com.generator.monitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Statistics of one parameter over a time range.
+ * Values are null when the range has no samples of the parameter;
+ * the threshold fields are null when the parameter has no threshold.
+ * Approximate summaries are read from the rollup tables: count, min, max and avg are exact,
+ * percentiles and time outside the thresholds are estimated from the bucket averages.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParameterSummary {
+    private String parameter;
+    private String displayName;
+    private long sampleCount;
+    private Double min;
+    private Double max;
+    private Double avg;
+    private Double p50;
+    private Double p95;
+    private Double thresholdMin;
+    private Double thresholdMax;
+    private Long secondsOutsideThreshold;
+    private boolean approximate;
+}
@@ -0,0 +1,21 @@
+package com.generator.monitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineStageMetrics {
+    private String stage;
+    private int workers;
+    private int capacity;
+    private int queueDepth;
+    private long maxQueueDepth;
+    private long accepted;
+    private long processed;
+    private long failed;
+    private long dropped;
+    private long spilled;
+}
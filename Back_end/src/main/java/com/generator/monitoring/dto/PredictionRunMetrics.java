@@ -0,0 +1,23 @@
+package com.generator.monitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PredictionRunMetrics {
+    private boolean running;
+    private int threads;
+    private long totalRuns;
+    private long skippedRuns;
+    private LocalDateTime lastStartedAt;
+    private long lastDurationMs;
+    private int lastDevices;
+    private int lastSucceeded;
+    private int lastFailed;
+    private int lastTimedOut;
+}
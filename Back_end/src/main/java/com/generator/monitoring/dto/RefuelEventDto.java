@@ -0,0 +1,21 @@
+package com.generator.monitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefuelEventDto {
+    private Long id;
+    private String deviceId;
+    private LocalDateTime startedAt;
+    private LocalDateTime endedAt;
+    private Double levelBefore;
+    private Double levelAfter;
+    private Double addedPercent;
+    private Double addedLitres;
+}
@@ -0,0 +1,22 @@
+package com.generator.monitoring.dto;
+
+import com.generator.monitoring.enums.ReportJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobDto {
+    private String jobId;
+    private String deviceId;
+    private ReportJobStatus status;
+    private int progress; // Percent, 0 - 100
+    private boolean cached; // Served from an earlier identical report
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,25 @@
+package com.generator.monitoring.dto;
+
+import com.generator.monitoring.enums.RetentionRunStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetentionProgress {
+    private Long runId;
+    private RetentionRunStatus status;
+    private LocalDateTime cutoff;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long deletedRows;
+    private long chunks;
+    private int droppedPartitions;
+    private double percentComplete;
+    private double rowsPerSecond;
+    private String error;
+}
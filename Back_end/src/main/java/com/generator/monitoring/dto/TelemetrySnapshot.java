@@ -0,0 +1,17 @@
+package com.generator.monitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TelemetrySnapshot {
+    private String deviceId;
+    private LocalDateTime timestamp;
+    private Map<String, Object> parameters; // Parameter name to value, missing values are left out
+}
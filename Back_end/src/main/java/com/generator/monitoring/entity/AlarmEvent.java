@@ -0,0 +1,64 @@
+package com.generator.monitoring.entity;
+
+import com.generator.monitoring.enums.AlarmSource;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only record of an alarm transition (RAISED or CLEARED).
+ * Rows are written in batches by the ingest pipeline through AlarmEventJdbcRepository.
+ */
+@Entity
+@Table(name = "alarm_events", indexes = {
+    @Index(name = "idx_alarm_device_timestamp", columnList = "device_id,timestamp"),
+    @Index(name = "idx_alarm_severity_timestamp", columnList = "severity,timestamp"),
+    @Index(name = "idx_alarm_parameter_timestamp", columnList = "parameter,timestamp"),
+    @Index(name = "idx_alarm_timestamp", columnList = "timestamp")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlarmEvent {
+
+    public static final int MAX_MESSAGE_LENGTH = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "device_id", nullable = false)
+    private Device device;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private AlarmSource source;
+
+    // ThresholdParameter name, or DEVICE_ALARM for device-reported alarms
+    @Column(nullable = false, length = 64)
+    private String parameter;
+
+    // Phase or source of the value, e.g. L1-N, (Generator)
+    @Column(length = 32)
+    private String label;
+
+    // WARNING, CRITICAL
+    @Column(nullable = false, length = 16)
+    private String severity;
+
+    // RAISED, CLEARED
+    @Column(nullable = false, length = 16)
+    private String state;
+
+    @Column(length = MAX_MESSAGE_LENGTH)
+    private String message;
+
+    private Double value;
+}
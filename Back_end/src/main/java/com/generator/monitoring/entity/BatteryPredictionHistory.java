@@ -10,6 +10,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "battery_prediction_history", indexes = {
     @Index(name = "idx_battery_device_timestamp", columnList = "device_id,timestamp")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_battery_device_slot", columnNames = {"device_id", "slot"})
 })
 @Data
 @NoArgsConstructor
@@ -24,6 +26,9 @@ public class BatteryPredictionHistory {
     @JoinColumn(name = "device_id", nullable = false)
     private Device device;
 
+    // Ring buffer position, written by PredictionHistoryJdbcRepository
+    private Integer slot;
+
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
@@ -0,0 +1,56 @@
+package com.generator.monitoring.entity;
+
+import com.generator.monitoring.enums.PredictionSeries;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of the decline estimator of one device and series.
+ * Rows are upserted by DeclineEstimatorJdbcRepository; the entity only defines the table.
+ */
+@Entity
+@Table(name = "decline_estimator_state")
+@IdClass(DeclineEstimatorState.Key.class)
+@Data
+public class DeclineEstimatorState {
+
+    @Id
+    @Column(name = "device_id")
+    private Long deviceId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private PredictionSeries series;
+
+    // Exponentially weighted sums, times in hours relative to last_timestamp
+    @Column(name = "weight")
+    private Double weight;
+
+    @Column(name = "sum_t")
+    private Double sumT;
+
+    @Column(name = "sum_v")
+    private Double sumV;
+
+    @Column(name = "sum_tt")
+    private Double sumTT;
+
+    @Column(name = "sum_tv")
+    private Double sumTV;
+
+    private Double lastValue;
+    private LocalDateTime firstTimestamp;
+    private LocalDateTime lastTimestamp;
+    private Long samples;
+    private LocalDateTime updatedAt;
+
+    @Data
+    public static class Key implements Serializable {
+        private Long deviceId;
+        private PredictionSeries series;
+    }
+}
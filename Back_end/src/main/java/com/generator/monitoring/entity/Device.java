@@ -49,7 +49,8 @@ public class Device {
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
-    @Column
+    // Written in bulk by LastSeenTracker only, never by entity updates
+    @Column(updatable = false)
     private LocalDateTime lastSeenAt;
 
     @PrePersist
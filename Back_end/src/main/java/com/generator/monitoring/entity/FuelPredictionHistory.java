@@ -10,6 +10,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "fuel_prediction_history", indexes = {
     @Index(name = "idx_fuel_device_timestamp", columnList = "device_id,timestamp")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_fuel_device_slot", columnNames = {"device_id", "slot"})
 })
 @Data
 @NoArgsConstructor
@@ -24,6 +26,9 @@ public class FuelPredictionHistory {
     @JoinColumn(name = "device_id", nullable = false)
     private Device device;
 
+    // Ring buffer position, written by PredictionHistoryJdbcRepository
+    private Integer slot;
+
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
@@ -0,0 +1,48 @@
+package com.generator.monitoring.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A refuel detected in the fuel level series, from the level before the rise to the level it settled at
+ */
+@Entity
+@Table(name = "refuel_events", indexes = {
+    @Index(name = "idx_refuel_device_started", columnList = "device_id,started_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefuelEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "device_id", nullable = false)
+    private Device device;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime endedAt;
+
+    // Fuel level in percent
+    @Column(nullable = false)
+    private Double levelBefore;
+
+    @Column(nullable = false)
+    private Double levelAfter;
+
+    @Column(nullable = false)
+    private Double addedPercent;
+
+    // Only known when a tank capacity is configured
+    private Double addedLitres;
+}
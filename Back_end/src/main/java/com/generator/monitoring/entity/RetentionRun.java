@@ -0,0 +1,51 @@
+package com.generator.monitoring.entity;
+
+import com.generator.monitoring.enums.RetentionRunStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of one telemetry retention run.
+ * The run deletes expired rows in id windows from startId to endId; nextId is saved after
+ * every window so that an interrupted run resumes where it stopped.
+ */
+@Entity
+@Table(name = "retention_runs", indexes = {
+    @Index(name = "idx_retention_run_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetentionRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime cutoff;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RetentionRunStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private Long startId;
+    private Long endId;
+    private Long nextId;
+
+    private long deletedRows;
+    private long chunks;
+    private int droppedPartitions;
+
+    @Column(length = 1000)
+    private String error;
+}
@@ -0,0 +1,45 @@
+package com.generator.monitoring.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate of one parameter of one device over one time bucket.
+ * Rows are upserted by TelemetryRollupJdbcRepository; the entities only define the tables.
+ */
+@MappedSuperclass
+@Data
+public abstract class TelemetryRollup {
+
+    @Id
+    @Column(name = "device_id")
+    private Long deviceId;
+
+    // TelemetryParameter key, e.g. rpm
+    @Id
+    @Column(length = 32)
+    private String parameter;
+
+    @Id
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    private Double minValue;
+    private Double maxValue;
+    private Double sumValue;
+    private Long countValue;
+    private Double lastValue;
+    private LocalDateTime lastTimestamp;
+
+    @Data
+    public static class Key implements Serializable {
+        private Long deviceId;
+        private String parameter;
+        private LocalDateTime bucketStart;
+    }
+}
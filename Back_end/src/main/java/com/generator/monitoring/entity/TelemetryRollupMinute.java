@@ -0,0 +1,18 @@
+package com.generator.monitoring.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * 1-minute telemetry aggregates
+ */
+@Entity
+@Table(name = "telemetry_rollup_1m", indexes = {
+    @Index(name = "idx_rollup_1m_device_parameter_bucket", columnList = "device_id,parameter,bucket_start"),
+    @Index(name = "idx_rollup_1m_bucket_start", columnList = "bucket_start")
+})
+@IdClass(TelemetryRollup.Key.class)
+public class TelemetryRollupMinute extends TelemetryRollup {
+}
@@ -0,0 +1,18 @@
+package com.generator.monitoring.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * 15-minute telemetry aggregates
+ */
+@Entity
+@Table(name = "telemetry_rollup_15m", indexes = {
+    @Index(name = "idx_rollup_15m_device_parameter_bucket", columnList = "device_id,parameter,bucket_start"),
+    @Index(name = "idx_rollup_15m_bucket_start", columnList = "bucket_start")
+})
+@IdClass(TelemetryRollup.Key.class)
+public class TelemetryRollupQuarterHour extends TelemetryRollup {
+}
@@ -0,0 +1,41 @@
+package com.generator.monitoring.enums;
+
+public enum AggregateFunction {
+    // Smallest value in the bucket
+    MIN("MIN(%s)", "MIN(min_value)"),
+
+    // Largest value in the bucket
+    MAX("MAX(%s)", "MAX(max_value)"),
+
+    // Mean of the values in the bucket
+    AVG("AVG(%s)", "SUM(sum_value) / NULLIF(SUM(count_value), 0)"),
+
+    // Latest non-null value in the bucket
+    LAST("(ARRAY_AGG(%1$s ORDER BY timestamp DESC) FILTER (WHERE %1$s IS NOT NULL))[1]",
+            "(ARRAY_AGG(last_value ORDER BY last_timestamp DESC))[1]"),
+
+    // Number of non-null values in the bucket
+    COUNT("COUNT(%s)", "SUM(count_value)");
+
+    private final String sqlTemplate;
+    private final String rollupSql;
+
+    AggregateFunction(String sqlTemplate, String rollupSql) {
+        this.sqlTemplate = sqlTemplate;
+        this.rollupSql = rollupSql;
+    }
+
+    /**
+     * SQL aggregate over the given column expression
+     */
+    public String toSql(String expression) {
+        return String.format(sqlTemplate, expression);
+    }
+
+    /**
+     * SQL aggregate combining rows of a rollup table
+     */
+    public String toRollupSql() {
+        return rollupSql;
+    }
+}
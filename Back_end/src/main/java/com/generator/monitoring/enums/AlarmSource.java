@@ -0,0 +1,9 @@
+package com.generator.monitoring.enums;
+
+public enum AlarmSource {
+    // Threshold check in the backend (ThresholdService)
+    BACKEND,
+
+    // Alarm string reported by the device controller
+    DEVICE
+}
@@ -0,0 +1,12 @@
+package com.generator.monitoring.enums;
+
+public enum OverflowPolicy {
+    // Wait for free space in the queue (back-pressure onto the producer)
+    BLOCK,
+
+    // Discard the oldest queued item to make room for the new one
+    DROP_OLDEST,
+
+    // Write the item to the on-disk spill file and replay it once the queue drains
+    SPILL
+}
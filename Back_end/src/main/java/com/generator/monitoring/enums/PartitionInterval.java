@@ -0,0 +1,27 @@
+package com.generator.monitoring.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+public enum PartitionInterval {
+    // One partition per calendar day
+    DAILY,
+
+    // One partition per week, starting on Monday
+    WEEKLY;
+
+    /**
+     * First day of the partition that contains the date
+     */
+    public LocalDate startOf(LocalDate date) {
+        return this == DAILY ? date : date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /**
+     * First day of the following partition
+     */
+    public LocalDate next(LocalDate partitionStart) {
+        return this == DAILY ? partitionStart.plusDays(1) : partitionStart.plusWeeks(1);
+    }
+}
@@ -0,0 +1,22 @@
+package com.generator.monitoring.enums;
+
+/**
+ * Telemetry series that get a decline rate and runtime prediction
+ */
+public enum PredictionSeries {
+    // Fuel level in percent
+    FUEL(TelemetryParameter.FUEL_LEVEL),
+
+    // Battery, reported as batteryVolts and treated as state of charge
+    BATTERY(TelemetryParameter.BATTERY_VOLTS);
+
+    private final TelemetryParameter parameter;
+
+    PredictionSeries(TelemetryParameter parameter) {
+        this.parameter = parameter;
+    }
+
+    public TelemetryParameter getParameter() {
+        return parameter;
+    }
+}
@@ -0,0 +1,15 @@
+package com.generator.monitoring.enums;
+
+public enum ReportJobStatus {
+    // Waiting for a free report worker
+    QUEUED,
+
+    // Being rendered
+    RUNNING,
+
+    // Rendered; the PDF can be downloaded until it expires from the cache
+    COMPLETED,
+
+    // Rendering failed, see the error message
+    FAILED
+}
@@ -0,0 +1,9 @@
+package com.generator.monitoring.enums;
+
+public enum ReportMode {
+    // Every sample as a table row
+    TABLE,
+
+    // Per-parameter statistics and downsampled charts, computed from aggregates
+    SUMMARY
+}
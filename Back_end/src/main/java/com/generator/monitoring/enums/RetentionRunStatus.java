@@ -0,0 +1,12 @@
+package com.generator.monitoring.enums;
+
+public enum RetentionRunStatus {
+    // Deleting; a run still RUNNING at startup was interrupted and is resumed
+    RUNNING,
+
+    // All expired rows up to the end id were deleted
+    COMPLETED,
+
+    // Stopped by an error, see the error message
+    FAILED
+}
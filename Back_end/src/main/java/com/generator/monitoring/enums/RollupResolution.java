@@ -0,0 +1,31 @@
+package com.generator.monitoring.enums;
+
+/**
+ * Resolutions of the telemetry rollup tables, finest first
+ */
+public enum RollupResolution {
+    // 1-minute buckets
+    ONE_MINUTE(60, "telemetry_rollup_1m"),
+
+    // 15-minute buckets
+    FIFTEEN_MINUTES(900, "telemetry_rollup_15m"),
+
+    // 1-hour buckets
+    ONE_HOUR(3600, "telemetry_rollup_1h");
+
+    private final long seconds;
+    private final String table;
+
+    RollupResolution(long seconds, String table) {
+        this.seconds = seconds;
+        this.table = table;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    public String getTable() {
+        return table;
+    }
+}
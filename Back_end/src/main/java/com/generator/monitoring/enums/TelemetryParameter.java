@@ -0,0 +1,256 @@
+package com.generator.monitoring.enums;
+
+import com.generator.monitoring.dto.TelemetryData;
+import com.generator.monitoring.entity.TelemetryHistory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of the telemetry history parameters: API name (the TelemetryHistory field),
+ * database column, display name with unit and getters on TelemetryHistory and TelemetryData.
+ * The declaration order is the column order used by the JDBC writer.
+ */
+public enum TelemetryParameter {
+    // RPM
+    RPM("rpm", "rpm", "RPM", ValueType.NUMBER,
+            TelemetryHistory::getRpm, TelemetryData::getRpm),
+
+    // Generator power
+    GENERATOR_PL1("generatorPL1", "generatorpl1", "Generator P L1 (kW)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorPL1, TelemetryData::getGeneratorPL1),
+    GENERATOR_PL2("generatorPL2", "generatorpl2", "Generator P L2 (kW)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorPL2, TelemetryData::getGeneratorPL2),
+    GENERATOR_PL3("generatorPL3", "generatorpl3", "Generator P L3 (kW)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorPL3, TelemetryData::getGeneratorPL3),
+    GENERATOR_Q("generatorQ", "generatorq", "Generator Q (kVAR)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorQ, TelemetryData::getGeneratorQ),
+    GENERATOR_QL1("generatorQL1", "generatorql1", "Generator Q L1 (kVAR)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorQL1, TelemetryData::getGeneratorQL1),
+    GENERATOR_QL2("generatorQL2", "generatorql2", "Generator Q L2 (kVAR)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorQL2, TelemetryData::getGeneratorQL2),
+    GENERATOR_QL3("generatorQL3", "generatorql3", "Generator Q L3 (kVAR)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorQL3, TelemetryData::getGeneratorQL3),
+    GENERATOR_S("generatorS", "generators", "Generator S (kVA)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorS, TelemetryData::getGeneratorS),
+    GENERATOR_SL1("generatorSL1", "generatorsl1", "Generator S L1 (kVA)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorSL1, TelemetryData::getGeneratorSL1),
+    GENERATOR_SL2("generatorSL2", "generatorsl2", "Generator S L2 (kVA)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorSL2, TelemetryData::getGeneratorSL2),
+    GENERATOR_SL3("generatorSL3", "generatorsl3", "Generator S L3 (kVA)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorSL3, TelemetryData::getGeneratorSL3),
+
+    // Generator power factor and frequency
+    GENERATOR_POWER_FACTOR("generatorPowerFactor", "generator_power_factor", "Generator Power Factor", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorPowerFactor, TelemetryData::getGeneratorPowerFactor),
+    GENERATOR_FREQUENCY("generatorFrequency", "generator_frequency", "Generator Frequency (Hz)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorFrequency, TelemetryData::getGeneratorFrequency),
+
+    // Generator voltage
+    GENERATOR_VOLTAGE_L1_N("generatorVoltageL1N", "generator_voltagel1n", "Generator Voltage L1-N (V)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorVoltageL1N, TelemetryData::getGeneratorVoltageL1N),
+    GENERATOR_VOLTAGE_L2_N("generatorVoltageL2N", "generator_voltagel2n", "Generator Voltage L2-N (V)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorVoltageL2N, TelemetryData::getGeneratorVoltageL2N),
+    GENERATOR_VOLTAGE_L3_N("generatorVoltageL3N", "generator_voltagel3n", "Generator Voltage L3-N (V)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorVoltageL3N, TelemetryData::getGeneratorVoltageL3N),
+    GENERATOR_VOLTAGE_L1_L2("generatorVoltageL1L2", "generator_voltagel1l2", "Generator Voltage L1-L2 (V)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorVoltageL1L2, TelemetryData::getGeneratorVoltageL1L2),
+    GENERATOR_VOLTAGE_L2_L3("generatorVoltageL2L3", "generator_voltagel2l3", "Generator Voltage L2-L3 (V)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorVoltageL2L3, TelemetryData::getGeneratorVoltageL2L3),
+    GENERATOR_VOLTAGE_L3_L1("generatorVoltageL3L1", "generator_voltagel3l1", "Generator Voltage L3-L1 (V)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorVoltageL3L1, TelemetryData::getGeneratorVoltageL3L1),
+
+    // Generator current
+    GENERATOR_CURRENT_L1("generatorCurrentL1", "generator_currentl1", "Generator Current L1 (A)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorCurrentL1, TelemetryData::getGeneratorCurrentL1),
+    GENERATOR_CURRENT_L2("generatorCurrentL2", "generator_currentl2", "Generator Current L2 (A)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorCurrentL2, TelemetryData::getGeneratorCurrentL2),
+    GENERATOR_CURRENT_L3("generatorCurrentL3", "generator_currentl3", "Generator Current L3 (A)", ValueType.NUMBER,
+            TelemetryHistory::getGeneratorCurrentL3, TelemetryData::getGeneratorCurrentL3),
+
+    // Earth fault and mains/bus
+    EARTH_FAULT_CURRENT("earthFaultCurrent", "earth_fault_current", "Earth Fault Current (mA)", ValueType.NUMBER,
+            TelemetryHistory::getEarthFaultCurrent, TelemetryData::getEarthFaultCurrent),
+    MAINS_BUS_FREQUENCY("mainsBusFrequency", "mains_bus_frequency", "Mains/Bus Frequency (Hz)", ValueType.NUMBER,
+            TelemetryHistory::getMainsBusFrequency, TelemetryData::getMainsBusFrequency),
+    MAINS_BUS_VOLTAGE_L1_N("mainsBusVoltageL1N", "mains_bus_voltagel1n", "Mains/Bus Voltage L1-N (V)", ValueType.NUMBER,
+            TelemetryHistory::getMainsBusVoltageL1N, TelemetryData::getMainsBusVoltageL1N),
+    MAINS_BUS_VOLTAGE_L2_N("mainsBusVoltageL2N", "mains_bus_voltagel2n", "Mains/Bus Voltage L2-N (V)", ValueType.NUMBER,
+            TelemetryHistory::getMainsBusVoltageL2N, TelemetryData::getMainsBusVoltageL2N),
+    MAINS_BUS_VOLTAGE_L3_N("mainsBusVoltageL3N", "mains_bus_voltagel3n", "Mains/Bus Voltage L3-N (V)", ValueType.NUMBER,
+            TelemetryHistory::getMainsBusVoltageL3N, TelemetryData::getMainsBusVoltageL3N),
+    MAINS_BUS_VOLTAGE_L1_L2("mainsBusVoltageL1L2", "mains_bus_voltagel1l2", "Mains/Bus Voltage L1-L2 (V)", ValueType.NUMBER,
+            TelemetryHistory::getMainsBusVoltageL1L2, TelemetryData::getMainsBusVoltageL1L2),
+    MAINS_BUS_VOLTAGE_L2_L3("mainsBusVoltageL2L3", "mains_bus_voltagel2l3", "Mains/Bus Voltage L2-L3 (V)", ValueType.NUMBER,
+            TelemetryHistory::getMainsBusVoltageL2L3, TelemetryData::getMainsBusVoltageL2L3),
+    MAINS_BUS_VOLTAGE_L3_L1("mainsBusVoltageL3L1", "mains_bus_voltagel3l1", "Mains/Bus Voltage L3-L1 (V)", ValueType.NUMBER,
+            TelemetryHistory::getMainsBusVoltageL3L1, TelemetryData::getMainsBusVoltageL3L1),
+
+    // Mains
+    MAINS_L1_CURRENT("mainsL1Current", "mainsl1current", "Mains L1 Current (A)", ValueType.NUMBER,
+            TelemetryHistory::getMainsL1Current, TelemetryData::getMainsL1Current),
+    MAINS_IMPORT_P("mainsImportP", "mains_importp", "Mains Import P (kW)", ValueType.NUMBER,
+            TelemetryHistory::getMainsImportP, TelemetryData::getMainsImportP),
+    MAINS_IMPORT_Q("mainsImportQ", "mains_importq", "Mains Import Q (kVAR)", ValueType.NUMBER,
+            TelemetryHistory::getMainsImportQ, TelemetryData::getMainsImportQ),
+    MAINS_PF("mainsPF", "mainspf", "Mains Power Factor", ValueType.NUMBER,
+            TelemetryHistory::getMainsPF, TelemetryData::getMainsPF),
+
+    // Vector shift and ROCOF
+    MAX_VECTOR_SHIFT("maxVectorShift", "max_vector_shift", "Max Vector Shift (°)", ValueType.NUMBER,
+            TelemetryHistory::getMaxVectorShift, TelemetryData::getMaxVectorShift),
+    ROCOF("rocof", "rocof", "ROCOF (Hz/s)", ValueType.NUMBER,
+            TelemetryHistory::getRocof, TelemetryData::getRocof),
+    MAX_ROCOF("maxRocof", "max_rocof", "Max ROCOF (Hz/s)", ValueType.NUMBER,
+            TelemetryHistory::getMaxRocof, TelemetryData::getMaxRocof),
+
+    // Load
+    LOAD_P("loadP", "loadp", "Load P (kW)", ValueType.NUMBER,
+            TelemetryHistory::getLoadP, TelemetryData::getLoadP),
+    LOAD_Q("loadQ", "loadq", "Load Q (kVAR)", ValueType.NUMBER,
+            TelemetryHistory::getLoadQ, TelemetryData::getLoadQ),
+    LOAD_PF("loadPF", "loadpf", "Load Power Factor", ValueType.NUMBER,
+            TelemetryHistory::getLoadPF, TelemetryData::getLoadPF),
+
+    // Battery and engine
+    BATTERY_VOLTS("batteryVolts", "battery_volts", "Battery Voltage (V)", ValueType.NUMBER,
+            TelemetryHistory::getBatteryVolts, TelemetryData::getBatteryVolts),
+    D_PLUS("dPlus", "d_plus", "D+ Voltage (V)", ValueType.NUMBER,
+            TelemetryHistory::getDPlus, TelemetryData::getDPlus),
+    OIL_PRESSURE("oilPressure", "oil_pressure", "Oil Pressure (bar)", ValueType.NUMBER,
+            TelemetryHistory::getOilPressure, TelemetryData::getOilPressure),
+    OIL_TEMPERATURE("oilTemperature", "oil_temperature", "Oil Temperature (°C)", ValueType.NUMBER,
+            TelemetryHistory::getOilTemperature, TelemetryData::getOilTemperature),
+    FUEL_LEVEL("fuelLevel", "fuel_level", "Fuel Level (%)", ValueType.NUMBER,
+            TelemetryHistory::getFuelLevel, TelemetryData::getFuelLevel),
+
+    // Status
+    E_STOP("eStop", "e_stop", "E-STOP", ValueType.BOOLEAN,
+            TelemetryHistory::getEStop, TelemetryData::getEStop),
+    ALARM("alarm", "alarm", "Alarm", ValueType.TEXT,
+            TelemetryHistory::getAlarm, TelemetryData::getAlarm);
+
+    public enum ValueType {
+        NUMBER,
+        BOOLEAN,
+        TEXT
+    }
+
+    private static final Map<String, TelemetryParameter> BY_KEY = Arrays.stream(values())
+            .collect(Collectors.toMap(TelemetryParameter::getKey, Function.identity()));
+
+    private static final List<TelemetryParameter> NUMERIC = Arrays.stream(values())
+            .filter(TelemetryParameter::isNumeric)
+            .toList();
+
+    private final String key;
+    private final String column;
+    private final String displayName;
+    private final ValueType valueType;
+    private final Function<TelemetryHistory, ?> getter;
+    private final Function<TelemetryData, ?> telemetryGetter;
+
+    TelemetryParameter(String key, String column, String displayName, ValueType valueType,
+                       Function<TelemetryHistory, ?> getter, Function<TelemetryData, ?> telemetryGetter) {
+        this.key = key;
+        this.column = column;
+        this.displayName = displayName;
+        this.valueType = valueType;
+        this.getter = getter;
+        this.telemetryGetter = telemetryGetter;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public ValueType getValueType() {
+        return valueType;
+    }
+
+    /**
+     * Whether the parameter can be aggregated; E-STOP counts as 0 or 1
+     */
+    public boolean isNumeric() {
+        return valueType != ValueType.TEXT;
+    }
+
+    /**
+     * SQL expression for the numeric value of the column
+     */
+    public String getNumericExpression() {
+        return valueType == ValueType.BOOLEAN ? "CAST(" + column + " AS INTEGER)" : column;
+    }
+
+    /**
+     * Value of the parameter in a history row, null when missing
+     */
+    public Object getValue(TelemetryHistory row) {
+        return getter.apply(row);
+    }
+
+    /**
+     * Numeric value of the parameter in a history row, NaN when missing or not numeric.
+     * E-STOP is 1 when activated and 0 otherwise.
+     */
+    public double getNumericValue(TelemetryHistory row) {
+        return toDouble(getter.apply(row));
+    }
+
+    /**
+     * Value of the parameter in a live telemetry message, null when missing
+     */
+    public Object getValue(TelemetryData telemetry) {
+        return telemetryGetter.apply(telemetry);
+    }
+
+    /**
+     * Numeric value of the parameter in a live telemetry message, NaN when missing or not numeric
+     */
+    public double getNumericValue(TelemetryData telemetry) {
+        return toDouble(telemetryGetter.apply(telemetry));
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Double number) {
+            return number;
+        }
+        if (value instanceof Boolean flag) {
+            return flag ? 1.0 : 0.0;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Look up a parameter by its API name, null when unknown
+     */
+    public static TelemetryParameter fromKey(String key) {
+        return BY_KEY.get(key);
+    }
+
+    /**
+     * Resolve API names in the given order, skipping unknown names
+     */
+    public static TelemetryParameter[] resolve(List<String> keys) {
+        return keys.stream()
+                .map(BY_KEY::get)
+                .filter(Objects::nonNull)
+                .toArray(TelemetryParameter[]::new);
+    }
+
+    public static List<TelemetryParameter> numericValues() {
+        return NUMERIC;
+    }
+}
@@ -52,6 +52,20 @@ public class GlobalExceptionHandler {
                 .body(Map.of("message", ex.getMessage(), "error", "INVALID_INPUT"));
     }
 
+    @ExceptionHandler(ReportJobNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleReportJobNotFoundException(ReportJobNotFoundException ex) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(Map.of("message", ex.getMessage(), "error", "REPORT_JOB_NOT_FOUND"));
+    }
+
+    @ExceptionHandler(ReportQueueFullException.class)
+    public ResponseEntity<Map<String, String>> handleReportQueueFullException(ReportQueueFullException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("message", ex.getMessage(), "error", "REPORT_QUEUE_FULL"));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleRuntimeException(RuntimeException ex) {
         return ResponseEntity
@@ -0,0 +1,7 @@
+package com.generator.monitoring.exception;
+
+public class ReportJobNotFoundException extends RuntimeException {
+    public ReportJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.generator.monitoring.exception;
+
+public class ReportQueueFullException extends RuntimeException {
+    public ReportQueueFullException(String message) {
+        super(message);
+    }
+}
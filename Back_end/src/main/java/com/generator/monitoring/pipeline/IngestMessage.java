@@ -0,0 +1,30 @@
+package com.generator.monitoring.pipeline;
+
+import com.generator.monitoring.dto.AlarmData;
+import com.generator.monitoring.dto.TelemetryData;
+import com.generator.monitoring.entity.Device;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A single MQTT sample as it moves through the ingest pipeline.
+ * Each stage fills in the fields it is responsible for.
+ */
+@Data
+public class IngestMessage {
+    private final String deviceId;
+    private final byte[] payload;
+    private final LocalDateTime receivedAt;
+
+    // Set by the decode stage; the sample time in epoch milliseconds, taking the timestamp as UTC
+    private TelemetryData telemetry;
+    private long sampledAtMillis;
+
+    // Set by the enrich stage
+    private Device device;
+
+    // Set by the evaluate stage
+    private List<AlarmData> backendAlarms;
+}
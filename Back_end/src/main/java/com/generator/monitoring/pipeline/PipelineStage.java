@@ -0,0 +1,288 @@
+package com.generator.monitoring.pipeline;
+
+import com.generator.monitoring.dto.PipelineStageMetrics;
+import com.generator.monitoring.enums.OverflowPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One stage of the ingest pipeline.
+ * Items are routed to a worker lane by key (device ID) so that samples of the same
+ * device are always processed in arrival order. Each lane has its own bounded queue
+ * and a single worker thread.
+ * A stage either handles items one at a time or, when created with {@link #batched},
+ * collects them into batches that are flushed on size or on a time window.
+ */
+public class PipelineStage<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    private final String name;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Function<T, String> routingKey;
+    private final Consumer<T> handler;
+    private final Consumer<List<T>> batchHandler;
+    private final int maxBatchSize;
+    private final long maxBatchWaitMs;
+    private final Consumer<T> spillHandler;
+
+    private final List<BlockingQueue<T>> lanes = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+
+    /**
+     * @param capacity     total queue capacity, split evenly across the worker lanes
+     * @param spillHandler receives items that overflow under {@link OverflowPolicy#SPILL};
+     *                     when null the stage blocks instead
+     */
+    public PipelineStage(String name, int workerCount, int capacity, OverflowPolicy overflowPolicy,
+                         Function<T, String> routingKey, Consumer<T> handler, Consumer<T> spillHandler) {
+        this(name, workerCount, capacity, overflowPolicy, routingKey, handler, null, 1, 0, spillHandler);
+    }
+
+    private PipelineStage(String name, int workerCount, int capacity, OverflowPolicy overflowPolicy,
+                          Function<T, String> routingKey, Consumer<T> handler, Consumer<List<T>> batchHandler,
+                          int maxBatchSize, long maxBatchWaitMs, Consumer<T> spillHandler) {
+        this.name = name;
+        this.overflowPolicy = overflowPolicy;
+        this.routingKey = routingKey;
+        this.handler = handler;
+        this.batchHandler = batchHandler;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchWaitMs = Math.max(0, maxBatchWaitMs);
+        this.spillHandler = spillHandler;
+
+        int laneCount = Math.max(1, workerCount);
+        int laneCapacity = Math.max(1, capacity / laneCount);
+        this.capacity = laneCapacity * laneCount;
+
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayBlockingQueue<>(laneCapacity));
+        }
+    }
+
+    /**
+     * Create a stage whose workers hand items to the handler in batches.
+     * A batch is flushed when it reaches maxBatchSize items or when maxBatchWaitMs
+     * has passed since its first item arrived, whichever comes first.
+     */
+    public static <T> PipelineStage<T> batched(String name, int workerCount, int capacity, OverflowPolicy overflowPolicy,
+                                               Function<T, String> routingKey, Consumer<List<T>> batchHandler,
+                                               int maxBatchSize, long maxBatchWaitMs) {
+        return new PipelineStage<>(name, workerCount, capacity, overflowPolicy, routingKey,
+                null, batchHandler, maxBatchSize, maxBatchWaitMs, null);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+
+        for (int i = 0; i < lanes.size(); i++) {
+            BlockingQueue<T> lane = lanes.get(i);
+            Runnable loop = batchHandler != null ? () -> runBatchWorker(lane) : () -> runWorker(lane);
+            Thread worker = new Thread(loop, "ingest-" + name + "-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        logger.info("Started pipeline stage '{}' with {} workers, capacity {}, overflow policy {}",
+                name, lanes.size(), capacity, overflowPolicy);
+    }
+
+    /**
+     * Stop accepting work and wait for the workers to drain their queues
+     */
+    public synchronized void stop(long timeoutMs) {
+        running = false;
+        long deadline = System.currentTimeMillis() + timeoutMs;
+
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+
+        if (getQueueDepth() > 0) {
+            logger.warn("Pipeline stage '{}' stopped with {} unprocessed items", name, getQueueDepth());
+        }
+    }
+
+    /**
+     * Enqueue an item, applying the overflow policy when its lane is full
+     */
+    public void submit(T item) {
+        BlockingQueue<T> lane = lanes.get(Math.floorMod(routingKey.apply(item).hashCode(), lanes.size()));
+
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                while (!lane.offer(item)) {
+                    if (lane.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+            }
+            case SPILL -> {
+                if (!lane.offer(item)) {
+                    if (spillHandler == null) {
+                        put(lane, item);
+                    } else {
+                        spillHandler.accept(item);
+                        spilled.incrementAndGet();
+                        return;
+                    }
+                }
+            }
+            default -> put(lane, item);
+        }
+
+        accepted.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(lane.size(), Math::max);
+    }
+
+    /**
+     * Enqueue an item, waiting for room in its lane whatever the overflow policy
+     */
+    public void submitBlocking(T item) {
+        BlockingQueue<T> lane = lanes.get(Math.floorMod(routingKey.apply(item).hashCode(), lanes.size()));
+        put(lane, item);
+        accepted.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(lane.size(), Math::max);
+    }
+
+    private void put(BlockingQueue<T> lane, T item) {
+        try {
+            lane.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void runWorker(BlockingQueue<T> lane) {
+        while (running || !lane.isEmpty()) {
+            T item;
+            try {
+                item = lane.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (item == null) {
+                continue;
+            }
+
+            try {
+                handler.accept(item);
+                processed.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                logger.error("Error in pipeline stage '{}': {}", name, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void runBatchWorker(BlockingQueue<T> lane) {
+        List<T> batch = new ArrayList<>(maxBatchSize);
+        boolean interrupted = false;
+
+        while (!interrupted && (running || !lane.isEmpty())) {
+            try {
+                T first = lane.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch until it is full or the flush window has elapsed
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchWaitMs);
+                while (batch.size() < maxBatchSize) {
+                    if (lane.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) {
+                        break;
+                    }
+                    T next = lane.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+            }
+
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            try {
+                batchHandler.accept(batch);
+                processed.addAndGet(batch.size());
+            } catch (Exception e) {
+                failed.addAndGet(batch.size());
+                logger.error("Error in pipeline stage '{}' for batch of {}: {}", name, batch.size(), e.getMessage(), e);
+            }
+            batch = new ArrayList<>(maxBatchSize);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<T> lane : lanes) {
+            depth += lane.size();
+        }
+        return depth;
+    }
+
+    public PipelineStageMetrics getMetrics() {
+        return new PipelineStageMetrics(
+                name,
+                lanes.size(),
+                capacity,
+                getQueueDepth(),
+                maxQueueDepth.get(),
+                accepted.get(),
+                processed.get(),
+                failed.get(),
+                dropped.get(),
+                spilled.get()
+        );
+    }
+}
@@ -0,0 +1,231 @@
+package com.generator.monitoring.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Append-only disk buffer for raw MQTT messages that did not fit into the pipeline.
+ * One line per message: deviceId, receivedAt and the Base64 encoded payload, tab separated.
+ * A device that has messages on disk stays pending until they are replayed; its newer
+ * messages must be appended behind them (see {@link #appendIfPending}) to keep its order.
+ */
+public class SpillFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpillFile.class);
+    private static final int MAX_REPLAY_PASSES = 5;
+
+    private final Path activeFile;
+    private final Path replayFile;
+    private BufferedWriter writer;
+
+    // Devices with lines in the active file, and in either file
+    private Set<String> activeDevices = new HashSet<>();
+    private final Set<String> pendingDevices = new HashSet<>();
+
+    public SpillFile(Path directory) {
+        this.activeFile = directory.resolve("ingest-spill.log");
+        this.replayFile = directory.resolve("ingest-spill.replay");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            logger.error("Could not create spill directory {}: {}", directory, e.getMessage());
+        }
+        pendingDevices.addAll(readDeviceIds(replayFile));
+        activeDevices.addAll(readDeviceIds(activeFile));
+        pendingDevices.addAll(activeDevices);
+    }
+
+    /**
+     * Append the message if its device still has spilled messages waiting for replay.
+     * Returns false when the device has nothing on disk and the message may enter the pipeline.
+     */
+    public synchronized boolean appendIfPending(IngestMessage message) {
+        if (!pendingDevices.contains(message.getDeviceId())) {
+            return false;
+        }
+        append(message);
+        return true;
+    }
+
+    public synchronized void append(IngestMessage message) {
+        try {
+            if (writer == null) {
+                boolean unterminated = endsWithoutNewline(activeFile);
+                writer = Files.newBufferedWriter(activeFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                if (unterminated) {
+                    // Finish a line cut short by a crash so it does not swallow this message
+                    writer.newLine();
+                }
+            }
+            writer.write(message.getDeviceId());
+            writer.write('\t');
+            writer.write(message.getReceivedAt().toString());
+            writer.write('\t');
+            writer.write(Base64.getEncoder().encodeToString(message.getPayload()));
+            writer.newLine();
+            writer.flush();
+            activeDevices.add(message.getDeviceId());
+            pendingDevices.add(message.getDeviceId());
+        } catch (IOException e) {
+            logger.error("Failed to spill message for device {}: {}", message.getDeviceId(), e.getMessage());
+        }
+    }
+
+    public synchronized boolean hasPending() {
+        return Files.exists(activeFile) || Files.exists(replayFile);
+    }
+
+    /**
+     * Replay all spilled messages into the given consumer, in the order they were spilled.
+     * The active file is rotated first so new overflow can keep spilling while we replay;
+     * whatever was spilled meanwhile is replayed in further passes until the files are empty.
+     * Returns the number of replayed messages.
+     */
+    public int replay(Consumer<IngestMessage> consumer) {
+        int count = 0;
+        for (int pass = 0; pass < MAX_REPLAY_PASSES && hasPending(); pass++) {
+            int replayed = replayOnce(consumer);
+            if (replayed < 0) {
+                break;
+            }
+            count += replayed;
+        }
+        return count;
+    }
+
+    /**
+     * Rotate the active file and replay it; returns -1 when the file could not be rotated.
+     * The replayed file is discarded even when some of its lines could not be read.
+     */
+    private int replayOnce(Consumer<IngestMessage> consumer) {
+        synchronized (this) {
+            try {
+                if (writer != null) {
+                    writer.close();
+                    writer = null;
+                }
+                if (!Files.exists(replayFile) && Files.exists(activeFile)) {
+                    Files.move(activeFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                    activeDevices = new HashSet<>();
+                }
+            } catch (IOException e) {
+                logger.error("Failed to rotate spill file: {}", e.getMessage());
+                return -1;
+            }
+            if (!Files.exists(replayFile)) {
+                pendingDevices.clear();
+                return 0;
+            }
+        }
+
+        int count = 0;
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                IngestMessage message = parseLine(line);
+                if (message == null) {
+                    // Typically the tail of a line cut short by a crash while spilling
+                    skipped++;
+                    continue;
+                }
+                consumer.accept(message);
+                count++;
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read spill file after {} messages: {}", count, e.getMessage());
+        }
+
+        if (skipped > 0) {
+            logger.warn("Skipped {} unreadable lines while replaying the spill file", skipped);
+        }
+        // Never replay the same file twice: that would submit its messages again
+        discardReplayFile();
+
+        synchronized (this) {
+            // Devices that spilled again during the replay stay pending for the next pass
+            pendingDevices.retainAll(activeDevices);
+        }
+        return count;
+    }
+
+    private static boolean endsWithoutNewline(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return false;
+        }
+        try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.position(channel.size() - 1).read(last);
+            return last.get(0) != '\n';
+        }
+    }
+
+    /**
+     * Parse one spilled line; null when it is malformed
+     */
+    private static IngestMessage parseLine(String line) {
+        String[] parts = line.split("\t", 3);
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new IngestMessage(parts[0], Base64.getDecoder().decode(parts[2]), LocalDateTime.parse(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Delete the replayed file, or move it aside when it cannot be deleted
+     */
+    private void discardReplayFile() {
+        try {
+            Files.delete(replayFile);
+        } catch (IOException e) {
+            Path failed = replayFile.resolveSibling("ingest-spill.failed-" + System.currentTimeMillis());
+            logger.error("Failed to delete spill file, moving it to {}: {}", failed, e.getMessage());
+            try {
+                Files.move(replayFile, failed);
+            } catch (IOException moveError) {
+                logger.error("Failed to move spill file aside: {}", moveError.getMessage());
+            }
+        }
+    }
+
+    private static Set<String> readDeviceIds(Path file) {
+        Set<String> deviceIds = new HashSet<>();
+        if (!Files.exists(file)) {
+            return deviceIds;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    deviceIds.add(line.substring(0, tab));
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read spill file {}: {}", file, e.getMessage());
+        }
+        return deviceIds;
+    }
+}
@@ -0,0 +1,161 @@
+package com.generator.monitoring.prediction;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Online, exponentially weighted linear regression of a value over time.
+ * Every sample updates five weighted sums in constant time; older samples fade out with
+ * the time constant, so the slope follows the recent consumption rate without keeping a window.
+ * Times are kept in hours relative to the last sample, which keeps the sums small.
+ * Updated by the ingest worker that owns the device, read by prediction requests.
+ */
+public class DeclineEstimator {
+
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+
+    private final double timeConstantHours;
+    private final double minSpanHours;
+
+    private double weight;
+    private double sumT;
+    private double sumV;
+    private double sumTT;
+    private double sumTV;
+    private double lastValue = Double.NaN;
+    private LocalDateTime firstTimestamp;
+    private LocalDateTime lastTimestamp;
+    private long samples;
+
+    public DeclineEstimator(double timeConstantHours, double minSpanHours) {
+        this.timeConstantHours = timeConstantHours;
+        this.minSpanHours = minSpanHours;
+    }
+
+    /**
+     * Add a sample; samples that are not newer than the last one are ignored
+     */
+    public synchronized void update(LocalDateTime timestamp, double value) {
+        if (Double.isNaN(value) || timestamp == null) {
+            return;
+        }
+        if (lastTimestamp != null) {
+            if (!timestamp.isAfter(lastTimestamp)) {
+                return;
+            }
+
+            // Fade the sums and move the time origin to the new sample
+            double dt = Duration.between(lastTimestamp, timestamp).toMillis() / MILLIS_PER_HOUR;
+            double decay = Math.exp(-dt / timeConstantHours);
+            weight *= decay;
+            sumT *= decay;
+            sumV *= decay;
+            sumTT *= decay;
+            sumTV *= decay;
+
+            sumTT += -2 * dt * sumT + dt * dt * weight;
+            sumTV -= dt * sumV;
+            sumT -= dt * weight;
+        } else {
+            firstTimestamp = timestamp;
+        }
+
+        weight += 1;
+        sumV += value;
+        lastValue = value;
+        lastTimestamp = timestamp;
+        samples++;
+    }
+
+    /**
+     * Forget all samples
+     */
+    public synchronized void reset() {
+        weight = 0;
+        sumT = 0;
+        sumV = 0;
+        sumTT = 0;
+        sumTV = 0;
+        lastValue = Double.NaN;
+        firstTimestamp = null;
+        lastTimestamp = null;
+        samples = 0;
+    }
+
+    /**
+     * Whether the samples span at least the minimum time needed for a stable slope
+     */
+    public synchronized boolean isReady() {
+        return samples >= 2 && Duration.between(firstTimestamp, lastTimestamp).toMillis() / MILLIS_PER_HOUR >= minSpanHours;
+    }
+
+    /**
+     * Decline per hour (positive while the value drops), null until the estimator is ready
+     */
+    public synchronized Double getDeclineRate() {
+        if (!isReady()) {
+            return null;
+        }
+        double denominator = weight * sumTT - sumT * sumT;
+        if (denominator <= 0) {
+            return null;
+        }
+        return -(weight * sumTV - sumT * sumV) / denominator;
+    }
+
+    /**
+     * Level the fit expects at the given time: the regression line once the estimator is ready,
+     * otherwise the latest sample. Null before the first sample.
+     */
+    public synchronized Double predict(LocalDateTime timestamp) {
+        if (lastTimestamp == null) {
+            return null;
+        }
+        double denominator = weight * sumTT - sumT * sumT;
+        if (!isReady() || denominator <= 0) {
+            return lastValue;
+        }
+        double slope = (weight * sumTV - sumT * sumV) / denominator;
+        double intercept = (sumV - slope * sumT) / weight;
+        double dt = Duration.between(lastTimestamp, timestamp).toMillis() / MILLIS_PER_HOUR;
+        return intercept + slope * dt;
+    }
+
+    /**
+     * Latest sample, null before the first one
+     */
+    public synchronized Double getLastValue() {
+        return Double.isNaN(lastValue) ? null : lastValue;
+    }
+
+    public synchronized LocalDateTime getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    public synchronized State snapshot() {
+        return new State(weight, sumT, sumV, sumTT, sumTV, lastValue, firstTimestamp, lastTimestamp, samples);
+    }
+
+    public synchronized void restore(State state) {
+        weight = state.weight();
+        sumT = state.sumT();
+        sumV = state.sumV();
+        sumTT = state.sumTT();
+        sumTV = state.sumTV();
+        lastValue = state.lastValue();
+        firstTimestamp = state.firstTimestamp();
+        lastTimestamp = state.lastTimestamp();
+        samples = state.samples();
+    }
+
+    /**
+     * Checkpoint of the estimator, enough to continue where it left off
+     */
+    public record State(double weight, double sumT, double sumV, double sumTT, double sumTV, double lastValue,
+                        LocalDateTime firstTimestamp, LocalDateTime lastTimestamp, long samples) {
+    }
+}
@@ -0,0 +1,150 @@
+package com.generator.monitoring.prediction;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a telemetry series at steps before it reaches its decline estimator.
+ * A sample that is a step away from the level the estimator expects is held back. If the
+ * following samples return to that level it was a sensor glitch and is dropped; if they
+ * stay away the step is confirmed and the estimator restarts at the new level right away.
+ * A rise (refuel, charge) stays open while the level keeps climbing and is reported once
+ * it has settled; a drop is reported when it is confirmed.
+ * After a gap longer than the settle time a sample is compared with the last one instead of
+ * the extrapolated fit, so an idle period is not mistaken for a step.
+ * Called by the ingest worker that owns the device.
+ */
+public class StepDetector {
+
+    private final DeclineEstimator estimator;
+    private final double stepThreshold;
+    private final int confirmSamples;
+    private final Duration settleTime;
+
+    // Samples held back while a possible step is being confirmed
+    private final List<Sample> pending = new ArrayList<>();
+    private double pendingReference;
+    private boolean pendingRise;
+
+    // Confirmed rise that may still be climbing
+    private boolean rising;
+    private double riseBase;
+    private LocalDateTime riseStart;
+    private double peak;
+    private LocalDateTime peakTime;
+
+    public StepDetector(DeclineEstimator estimator, double stepThreshold, int confirmSamples, Duration settleTime) {
+        this.estimator = estimator;
+        this.stepThreshold = stepThreshold;
+        this.confirmSamples = confirmSamples;
+        this.settleTime = settleTime;
+    }
+
+    /**
+     * Feed a sample; returns a step once it is complete, otherwise null
+     */
+    public synchronized Step accept(LocalDateTime timestamp, double value) {
+        if (rising) {
+            return continueRise(timestamp, value);
+        }
+
+        if (!pending.isEmpty()) {
+            return continuePending(timestamp, value);
+        }
+
+        Double expected = expectedLevel(timestamp);
+        if (expected != null && Math.abs(value - expected) >= stepThreshold) {
+            pendingReference = expected;
+            pendingRise = value > expected;
+            pending.add(new Sample(timestamp, value));
+            return null;
+        }
+
+        estimator.update(timestamp, value);
+        return null;
+    }
+
+    private Double expectedLevel(LocalDateTime timestamp) {
+        LocalDateTime last = estimator.getLastTimestamp();
+        if (last != null && Duration.between(last, timestamp).compareTo(settleTime) > 0) {
+            return estimator.getLastValue();
+        }
+        return estimator.predict(timestamp);
+    }
+
+    private Step continuePending(LocalDateTime timestamp, double value) {
+        double distance = pendingRise ? value - pendingReference : pendingReference - value;
+        if (distance < stepThreshold / 2) {
+            // Back at the old level, the held samples were a glitch
+            pending.clear();
+            estimator.update(timestamp, value);
+            return null;
+        }
+
+        pending.add(new Sample(timestamp, value));
+        if (pending.size() < confirmSamples) {
+            return null;
+        }
+
+        Sample first = pending.get(0);
+        estimator.reset();
+
+        if (pendingRise) {
+            // Restart at the highest held sample and follow the rise until it settles
+            int peakIndex = 0;
+            for (int i = 1; i < pending.size(); i++) {
+                if (pending.get(i).value() >= pending.get(peakIndex).value()) {
+                    peakIndex = i;
+                }
+            }
+            rising = true;
+            riseBase = pendingReference;
+            riseStart = first.timestamp();
+            peak = pending.get(peakIndex).value();
+            peakTime = pending.get(peakIndex).timestamp();
+            for (Sample sample : pending.subList(peakIndex, pending.size())) {
+                estimator.update(sample.timestamp(), sample.value());
+            }
+            pending.clear();
+            return null;
+        }
+
+        for (Sample sample : pending) {
+            estimator.update(sample.timestamp(), sample.value());
+        }
+        Step drop = new Step(false, first.timestamp(), timestamp, pendingReference, value);
+        pending.clear();
+        return drop;
+    }
+
+    private Step continueRise(LocalDateTime timestamp, double value) {
+        if (value > peak) {
+            // Still climbing, the segment starts at the new peak
+            peak = value;
+            peakTime = timestamp;
+            estimator.reset();
+            estimator.update(timestamp, value);
+            return null;
+        }
+
+        estimator.update(timestamp, value);
+        if (Duration.between(peakTime, timestamp).compareTo(settleTime) < 0) {
+            return null;
+        }
+
+        rising = false;
+        return new Step(true, riseStart, peakTime, riseBase, peak);
+    }
+
+    private record Sample(LocalDateTime timestamp, double value) {
+    }
+
+    /**
+     * A level change between two segments of the series
+     */
+    public record Step(boolean rise, LocalDateTime startedAt, LocalDateTime endedAt,
+                       double levelBefore, double levelAfter) {
+    }
+}
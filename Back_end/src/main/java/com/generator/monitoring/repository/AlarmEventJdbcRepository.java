@@ -0,0 +1,64 @@
+package com.generator.monitoring.repository;
+
+import com.generator.monitoring.entity.AlarmEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC write path for alarm events, using multi-row INSERTs like TelemetryHistoryJdbcRepository
+ */
+@Repository
+public class AlarmEventJdbcRepository {
+
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String INSERT_PREFIX = "INSERT INTO alarm_events "
+            + "(device_id, timestamp, source, parameter, label, severity, state, message, value) VALUES ";
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert all events, using as few statements as possible.
+     * Returns the number of inserted rows.
+     */
+    public int insertBatch(List<AlarmEvent> events) {
+        int inserted = 0;
+        for (int from = 0; from < events.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<AlarmEvent> chunk = events.subList(from, Math.min(events.size(), from + MAX_ROWS_PER_STATEMENT));
+            String sql = INSERT_PREFIX + String.join(", ", Collections.nCopies(chunk.size(), ROW_PLACEHOLDERS));
+            inserted += jdbcTemplate.update(sql, ps -> bindRows(ps, chunk));
+        }
+        return inserted;
+    }
+
+    private void bindRows(PreparedStatement ps, List<AlarmEvent> events) throws SQLException {
+        int index = 1;
+        for (AlarmEvent event : events) {
+            ps.setLong(index++, event.getDevice().getId());
+            ps.setTimestamp(index++, Timestamp.valueOf(event.getTimestamp()));
+            ps.setString(index++, event.getSource().name());
+            ps.setString(index++, event.getParameter());
+            ps.setString(index++, event.getLabel());
+            ps.setString(index++, event.getSeverity());
+            ps.setString(index++, event.getState());
+            ps.setString(index++, event.getMessage());
+
+            if (event.getValue() == null) {
+                ps.setNull(index++, Types.DOUBLE);
+            } else {
+                ps.setDouble(index++, event.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.generator.monitoring.repository;
+
+import com.generator.monitoring.entity.AlarmEvent;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AlarmEventRepository extends JpaRepository<AlarmEvent, Long>, JpaSpecificationExecutor<AlarmEvent> {
+
+    /**
+     * Filtered page of events, fetching the device in the same query
+     */
+    @Override
+    @EntityGraph(attributePaths = "device")
+    Page<AlarmEvent> findAll(Specification<AlarmEvent> spec, Pageable pageable);
+}
@@ -17,24 +17,7 @@ public interface BatteryPredictionHistoryRepository extends JpaRepository<Batter
     /**
      * Find latest 10 battery records for a device (for prediction calculation)
      */
-    @Query("SELECT b FROM BatteryPredictionHistory b WHERE b.device = :device " +
-           "ORDER BY b.timestamp DESC")
-    List<BatteryPredictionHistory> findTop10ByDeviceOrderByTimestampDesc(@Param("device") Device device);
-
-    /**
-     * Count records for a device
-     */
-    @Query("SELECT COUNT(b) FROM BatteryPredictionHistory b WHERE b.device = :device")
-    long countByDevice(@Param("device") Device device);
-
-    /**
-     * Delete oldest records for a device beyond the limit
-     */
-    @Modifying
-    @Query("DELETE FROM BatteryPredictionHistory b WHERE b.id IN " +
-           "(SELECT b2.id FROM BatteryPredictionHistory b2 WHERE b2.device = :device " +
-           "ORDER BY b2.timestamp DESC OFFSET :limit)")
-    void deleteOldestRecordsBeyondLimit(@Param("device") Device device, @Param("limit") int limit);
+    List<BatteryPredictionHistory> findTop10ByDeviceOrderByTimestampDesc(Device device);
 
     /**
      * Delete all records for a device older than a specific timestamp
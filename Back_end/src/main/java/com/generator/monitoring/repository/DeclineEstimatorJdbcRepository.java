@@ -0,0 +1,99 @@
+package com.generator.monitoring.repository;
+
+import com.generator.monitoring.enums.PredictionSeries;
+import com.generator.monitoring.prediction.DeclineEstimator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC access to decline_estimator_state, the checkpoints of the in-memory decline estimators
+ */
+@Repository
+public class DeclineEstimatorJdbcRepository {
+
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPSERT_PREFIX = "INSERT INTO decline_estimator_state (device_id, series, weight, "
+            + "sum_t, sum_v, sum_tt, sum_tv, last_value, first_timestamp, last_timestamp, samples, updated_at) VALUES ";
+
+    private static final String UPSERT_SUFFIX = " ON CONFLICT (device_id, series) DO UPDATE SET "
+            + "weight = EXCLUDED.weight, sum_t = EXCLUDED.sum_t, sum_v = EXCLUDED.sum_v, "
+            + "sum_tt = EXCLUDED.sum_tt, sum_tv = EXCLUDED.sum_tv, last_value = EXCLUDED.last_value, "
+            + "first_timestamp = EXCLUDED.first_timestamp, last_timestamp = EXCLUDED.last_timestamp, "
+            + "samples = EXCLUDED.samples, updated_at = EXCLUDED.updated_at";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Estimator checkpoint of one device (primary key) and series
+     */
+    public record StateRow(long deviceId, PredictionSeries series, DeclineEstimator.State state) {
+    }
+
+    /**
+     * Insert or replace checkpoints.
+     * Returns the number of affected rows.
+     */
+    public int upsert(List<StateRow> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        int affected = 0;
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<StateRow> chunk = rows.subList(from, Math.min(rows.size(), from + MAX_ROWS_PER_STATEMENT));
+            String sql = UPSERT_PREFIX + String.join(", ", Collections.nCopies(chunk.size(), ROW_PLACEHOLDERS))
+                    + UPSERT_SUFFIX;
+            affected += jdbcTemplate.update(sql, ps -> bindRows(ps, chunk, now));
+        }
+        return affected;
+    }
+
+    private void bindRows(PreparedStatement ps, List<StateRow> rows, LocalDateTime now) throws SQLException {
+        int index = 1;
+        for (StateRow row : rows) {
+            DeclineEstimator.State state = row.state();
+            ps.setLong(index++, row.deviceId());
+            ps.setString(index++, row.series().name());
+            ps.setDouble(index++, state.weight());
+            ps.setDouble(index++, state.sumT());
+            ps.setDouble(index++, state.sumV());
+            ps.setDouble(index++, state.sumTT());
+            ps.setDouble(index++, state.sumTV());
+            ps.setDouble(index++, state.lastValue());
+            ps.setTimestamp(index++, toTimestamp(state.firstTimestamp()));
+            ps.setTimestamp(index++, toTimestamp(state.lastTimestamp()));
+            ps.setLong(index++, state.samples());
+            ps.setTimestamp(index++, Timestamp.valueOf(now));
+        }
+    }
+
+    public List<StateRow> findAll() {
+        return jdbcTemplate.query("SELECT device_id, series, weight, sum_t, sum_v, sum_tt, sum_tv, last_value, "
+                + "first_timestamp, last_timestamp, samples FROM decline_estimator_state", (rs, rowNum) -> {
+            Timestamp first = rs.getTimestamp("first_timestamp");
+            Timestamp last = rs.getTimestamp("last_timestamp");
+            DeclineEstimator.State state = new DeclineEstimator.State(rs.getDouble("weight"), rs.getDouble("sum_t"),
+                    rs.getDouble("sum_v"), rs.getDouble("sum_tt"), rs.getDouble("sum_tv"),
+                    rs.getDouble("last_value"), first != null ? first.toLocalDateTime() : null,
+                    last != null ? last.toLocalDateTime() : null, rs.getLong("samples"));
+            return new StateRow(rs.getLong("device_id"), PredictionSeries.valueOf(rs.getString("series")), state);
+        });
+    }
+
+    public int deleteByDevice(long deviceId) {
+        return jdbcTemplate.update("DELETE FROM decline_estimator_state WHERE device_id = ?", deviceId);
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+}
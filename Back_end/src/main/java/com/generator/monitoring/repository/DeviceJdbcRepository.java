@@ -0,0 +1,46 @@
+package com.generator.monitoring.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class DeviceJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Update last_seen_at for many devices with a single UPDATE ... FROM (VALUES ...) statement.
+     * A value never moves last_seen_at backwards.
+     * Returns the number of updated rows.
+     */
+    public int updateLastSeenAt(Map<Long, LocalDateTime> lastSeenByDeviceId) {
+        if (lastSeenByDeviceId.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE devices d SET last_seen_at = v.last_seen_at FROM (VALUES ");
+        List<Object> args = new ArrayList<>(lastSeenByDeviceId.size() * 2);
+
+        for (Map.Entry<Long, LocalDateTime> entry : lastSeenByDeviceId.entrySet()) {
+            if (!args.isEmpty()) {
+                sql.append(", ");
+            }
+            sql.append("(CAST(? AS BIGINT), CAST(? AS TIMESTAMP))");
+            args.add(entry.getKey());
+            args.add(Timestamp.valueOf(entry.getValue()));
+        }
+
+        sql.append(") AS v(id, last_seen_at) WHERE d.id = v.id "
+                + "AND (d.last_seen_at IS NULL OR d.last_seen_at < v.last_seen_at)");
+
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
@@ -17,24 +17,7 @@ public interface FuelPredictionHistoryRepository extends JpaRepository<FuelPredi
     /**
      * Find latest 10 fuel records for a device (for prediction calculation)
      */
-    @Query("SELECT f FROM FuelPredictionHistory f WHERE f.device = :device " +
-           "ORDER BY f.timestamp DESC")
-    List<FuelPredictionHistory> findTop10ByDeviceOrderByTimestampDesc(@Param("device") Device device);
-
-    /**
-     * Count records for a device
-     */
-    @Query("SELECT COUNT(f) FROM FuelPredictionHistory f WHERE f.device = :device")
-    long countByDevice(@Param("device") Device device);
-
-    /**
-     * Delete oldest records for a device beyond the limit
-     */
-    @Modifying
-    @Query("DELETE FROM FuelPredictionHistory f WHERE f.id IN " +
-           "(SELECT f2.id FROM FuelPredictionHistory f2 WHERE f2.device = :device " +
-           "ORDER BY f2.timestamp DESC OFFSET :limit)")
-    void deleteOldestRecordsBeyondLimit(@Param("device") Device device, @Param("limit") int limit);
+    List<FuelPredictionHistory> findTop10ByDeviceOrderByTimestampDesc(Device device);
 
     /**
      * Delete all records for a device older than a specific timestamp
@@ -0,0 +1,36 @@
+package com.generator.monitoring.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Writes the fuel and battery prediction history as fixed-size ring buffers.
+ * Every device has a fixed number of slots per table; a sample overwrites its slot in place,
+ * so the tables never grow and need no deletes.
+ */
+@Repository
+public class PredictionHistoryJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void upsertFuel(long deviceId, int slot, LocalDateTime timestamp, double fuelLevel) {
+        upsert("fuel_prediction_history", "fuel_level", deviceId, slot, timestamp, fuelLevel);
+    }
+
+    public void upsertBattery(long deviceId, int slot, LocalDateTime timestamp, double batterySoc) {
+        upsert("battery_prediction_history", "battery_soc", deviceId, slot, timestamp, batterySoc);
+    }
+
+    private void upsert(String table, String valueColumn, long deviceId, int slot, LocalDateTime timestamp,
+                        double value) {
+        jdbcTemplate.update("INSERT INTO " + table + " (device_id, slot, timestamp, " + valueColumn + ") "
+                        + "VALUES (?, ?, ?, ?) ON CONFLICT (device_id, slot) DO UPDATE SET "
+                        + "timestamp = EXCLUDED.timestamp, " + valueColumn + " = EXCLUDED." + valueColumn,
+                deviceId, slot, Timestamp.valueOf(timestamp), value);
+    }
+}
@@ -0,0 +1,32 @@
+package com.generator.monitoring.repository;
+
+import com.generator.monitoring.entity.Device;
+import com.generator.monitoring.entity.RefuelEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RefuelEventRepository extends JpaRepository<RefuelEvent, Long> {
+
+    /**
+     * Refuels of a device that started in the time range, newest first
+     */
+    @Query("SELECT r FROM RefuelEvent r WHERE r.device = :device " +
+           "AND r.startedAt >= :startTime AND r.startedAt <= :endTime " +
+           "ORDER BY r.startedAt DESC")
+    List<RefuelEvent> findByDeviceAndTimeRange(
+        @Param("device") Device device,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime
+    );
+
+    @Modifying
+    @Query("DELETE FROM RefuelEvent r WHERE r.device = :device")
+    void deleteByDevice(@Param("device") Device device);
+}
@@ -0,0 +1,22 @@
+package com.generator.monitoring.repository;
+
+import com.generator.monitoring.entity.RetentionRun;
+import com.generator.monitoring.enums.RetentionRunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RetentionRunRepository extends JpaRepository<RetentionRun, Long> {
+
+    /**
+     * Latest run with the given status
+     */
+    Optional<RetentionRun> findFirstByStatusOrderByIdDesc(RetentionRunStatus status);
+
+    /**
+     * Latest run of any status
+     */
+    Optional<RetentionRun> findFirstByOrderByIdDesc();
+}
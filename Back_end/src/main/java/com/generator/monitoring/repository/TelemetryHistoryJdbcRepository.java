@@ -0,0 +1,385 @@
+package com.generator.monitoring.repository;
+
+import com.generator.monitoring.dto.HistoryDataPoint;
+import com.generator.monitoring.dto.ParameterSummary;
+import com.generator.monitoring.entity.TelemetryHistory;
+import com.generator.monitoring.enums.AggregateFunction;
+import com.generator.monitoring.enums.TelemetryParameter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC access to telemetry history.
+ * TelemetryHistory uses IDENTITY ids, so Hibernate cannot batch its inserts;
+ * this writer sends many rows per statement as multi-row INSERTs instead.
+ * Reads select only the requested columns, and time-bucketed aggregation is pushed down to SQL.
+ */
+@Repository
+public class TelemetryHistoryJdbcRepository {
+
+    // PostgreSQL allows at most 65535 bind parameters per statement
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final TelemetryParameter[] PARAMETERS = TelemetryParameter.values();
+
+    // device_id, timestamp, then one column per parameter in registry order
+    private static final int COLUMN_COUNT = PARAMETERS.length + 2;
+
+    private static final String INSERT_PREFIX = "INSERT INTO telemetry_history (device_id, timestamp, "
+            + Arrays.stream(PARAMETERS).map(TelemetryParameter::getColumn).collect(Collectors.joining(", "))
+            + ") VALUES ";
+
+    private static final String ROW_PLACEHOLDERS = "(" + "?, ".repeat(COLUMN_COUNT - 1) + "?)";
+
+    // Rows per round trip when reading through a cursor
+    private static final int FETCH_SIZE = 5000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public TelemetryHistoryJdbcRepository(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Insert all rows, using as few statements as the bind parameter limit allows.
+     * All statements run in one transaction, so a failed batch inserted nothing and can be retried row by row.
+     * Returns the number of inserted rows.
+     */
+    @Transactional
+    public int insertBatch(List<TelemetryHistory> rows) {
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<TelemetryHistory> chunk = rows.subList(from, Math.min(rows.size(), from + MAX_ROWS_PER_STATEMENT));
+            inserted += jdbcTemplate.update(buildInsertSql(chunk.size()), ps -> bindRows(ps, chunk));
+        }
+        return inserted;
+    }
+
+    private String buildInsertSql(int rowCount) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rowCount * (ROW_PLACEHOLDERS.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.toString();
+    }
+
+    private void bindRows(PreparedStatement ps, List<TelemetryHistory> rows) throws SQLException {
+        int index = 1;
+        for (TelemetryHistory row : rows) {
+            ps.setLong(index++, row.getDevice().getId());
+            ps.setTimestamp(index++, Timestamp.valueOf(row.getTimestamp()));
+
+            for (TelemetryParameter parameter : PARAMETERS) {
+                Object value = parameter.getValue(row);
+                switch (parameter.getValueType()) {
+                    case NUMBER -> {
+                        if (value == null) {
+                            ps.setNull(index++, Types.DOUBLE);
+                        } else {
+                            ps.setDouble(index++, (Double) value);
+                        }
+                    }
+                    case BOOLEAN -> {
+                        if (value == null) {
+                            ps.setNull(index++, Types.BOOLEAN);
+                        } else {
+                            ps.setBoolean(index++, (Boolean) value);
+                        }
+                    }
+                    default -> {
+                        if (value == null) {
+                            ps.setNull(index++, Types.VARCHAR);
+                        } else {
+                            ps.setString(index++, value.toString());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Smallest id in the table, or null when it is empty
+     */
+    public Long findMinId() {
+        return jdbcTemplate.queryForObject("SELECT MIN(id) FROM telemetry_history", Long.class);
+    }
+
+    /**
+     * Id of the newest row before the cutoff, found with a backward scan of idx_timestamp,
+     * or null when no row is older than the cutoff
+     */
+    public Long findLastIdBefore(LocalDateTime cutoff) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM telemetry_history WHERE timestamp < ? ORDER BY timestamp DESC LIMIT 1",
+                Long.class, Timestamp.valueOf(cutoff));
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * Delete the rows older than the cutoff within the id window [fromId, toId).
+     * The window bounds the primary key range the statement touches, so each call is short.
+     */
+    public int deleteWindowBefore(long fromId, long toId, LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM telemetry_history WHERE id >= ? AND id < ? AND timestamp < ?",
+                fromId, toId, Timestamp.valueOf(cutoff));
+    }
+
+    /**
+     * Aggregate parameters of one device into fixed-size time buckets, one row per non-empty bucket.
+     * Buckets are aligned to the epoch, e.g. 15 minute buckets start at :00, :15, :30 and :45.
+     */
+    public List<HistoryDataPoint> aggregate(Long devicePk, LocalDateTime startTime, LocalDateTime endTime,
+                                            List<TelemetryParameter> parameters, long bucketSeconds,
+                                            AggregateFunction function) {
+        StringBuilder sql = new StringBuilder("SELECT FLOOR(EXTRACT(EPOCH FROM timestamp) / ?) * ? AS bucket");
+        for (TelemetryParameter parameter : parameters) {
+            sql.append(", ").append(function.toSql(parameter.getNumericExpression()));
+        }
+        sql.append(" FROM telemetry_history WHERE device_id = ? AND timestamp >= ? AND timestamp <= ?"
+                + " GROUP BY 1 ORDER BY 1");
+
+        return jdbcTemplate.query(sql.toString(), ps -> {
+            ps.setLong(1, bucketSeconds);
+            ps.setLong(2, bucketSeconds);
+            ps.setLong(3, devicePk);
+            ps.setTimestamp(4, Timestamp.valueOf(startTime));
+            ps.setTimestamp(5, Timestamp.valueOf(endTime));
+        }, (rs, rowNum) -> {
+            // EXTRACT(EPOCH) of a timestamp without time zone is taken as UTC
+            LocalDateTime bucket = LocalDateTime.ofEpochSecond(rs.getLong(1), 0, ZoneOffset.UTC);
+            Map<String, Object> values = new LinkedHashMap<>();
+
+            for (int i = 0; i < parameters.size(); i++) {
+                Object value = function == AggregateFunction.COUNT ? rs.getLong(i + 2) : rs.getDouble(i + 2);
+                if (!rs.wasNull()) {
+                    values.put(parameters.get(i).getKey(), value);
+                }
+            }
+            return new HistoryDataPoint(bucket, values);
+        });
+    }
+
+    /**
+     * Statistics of each parameter over a time range, computed in one pass in the database:
+     * sample count, min, max, avg, median and 95th percentile, plus the seconds spent outside
+     * the given limits (NaN when a parameter has none). Time outside the limits is the gap to the
+     * next sample, capped at maxGapSeconds so that outages are not counted.
+     * Percentiles sort every sample of the range; without withPercentiles they are left null.
+     */
+    public List<ParameterSummary> summarize(Long devicePk, LocalDateTime startTime, LocalDateTime endTime,
+                                    List<TelemetryParameter> parameters, double[] minLimits, double[] maxLimits,
+                                    long maxGapSeconds, boolean withPercentiles) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        List<Double> limitArgs = new ArrayList<>();
+        for (int i = 0; i < parameters.size(); i++) {
+            String expression = parameters.get(i).getNumericExpression();
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("COUNT(").append(expression).append("), MIN(").append(expression)
+                    .append("), MAX(").append(expression).append("), AVG(").append(expression).append("), ");
+            if (withPercentiles) {
+                sql.append("percentile_cont(0.5) WITHIN GROUP (ORDER BY ").append(expression)
+                        .append("), percentile_cont(0.95) WITHIN GROUP (ORDER BY ").append(expression).append("), ");
+            } else {
+                sql.append("NULL, NULL, ");
+            }
+            if (Double.isNaN(minLimits[i])) {
+                sql.append("NULL");
+            } else {
+                sql.append("SUM(CASE WHEN ").append(expression).append(" < ? OR ").append(expression)
+                        .append(" > ? THEN gap ELSE 0 END)");
+                limitArgs.add(minLimits[i]);
+                limitArgs.add(maxLimits[i]);
+            }
+        }
+
+        sql.append(" FROM (SELECT LEAST(EXTRACT(EPOCH FROM LEAD(timestamp) OVER (ORDER BY timestamp) - timestamp), ?)"
+                + " AS gap");
+        for (TelemetryParameter parameter : parameters) {
+            sql.append(", ").append(parameter.getColumn());
+        }
+        sql.append(" FROM telemetry_history WHERE device_id = ? AND timestamp >= ? AND timestamp <= ?) samples");
+
+        return jdbcTemplate.query(sql.toString(), ps -> {
+            int index = 1;
+            for (Double limit : limitArgs) {
+                ps.setDouble(index++, limit);
+            }
+            ps.setLong(index++, maxGapSeconds);
+            ps.setLong(index++, devicePk);
+            ps.setTimestamp(index++, Timestamp.valueOf(startTime));
+            ps.setTimestamp(index, Timestamp.valueOf(endTime));
+        }, rs -> {
+            // An aggregate without GROUP BY always returns exactly one row
+            rs.next();
+            List<ParameterSummary> summaries = new ArrayList<>(parameters.size());
+            for (int i = 0; i < parameters.size(); i++) {
+                TelemetryParameter parameter = parameters.get(i);
+                int column = i * 7 + 1;
+                Double secondsOutside = readDouble(rs, column + 6);
+                summaries.add(new ParameterSummary(
+                        parameter.getKey(),
+                        parameter.getDisplayName(),
+                        rs.getLong(column),
+                        readDouble(rs, column + 1),
+                        readDouble(rs, column + 2),
+                        readDouble(rs, column + 3),
+                        readDouble(rs, column + 4),
+                        readDouble(rs, column + 5),
+                        Double.isNaN(minLimits[i]) ? null : minLimits[i],
+                        Double.isNaN(maxLimits[i]) ? null : maxLimits[i],
+                        secondsOutside != null ? Math.round(secondsOutside) : null,
+                        false));
+            }
+            return summaries;
+        });
+    }
+
+    /**
+     * Receives one projected history row at a time
+     */
+    @FunctionalInterface
+    public interface HistoryRowHandler {
+        /**
+         * @param values values of the selected parameters in the requested order, null when missing.
+         *               The array is reused for the next row, so copy what must be kept.
+         */
+        void accept(LocalDateTime timestamp, Object[] values);
+    }
+
+    /**
+     * Read the given parameters of one device within a time range, newest first.
+     * Only the timestamp and the selected columns are fetched, and rows are handed to the
+     * handler as they are read instead of being collected into entities.
+     * Runs in a read-only transaction so that PostgreSQL uses a server-side cursor and
+     * fetches FETCH_SIZE rows at a time; memory use does not grow with the time range.
+     */
+    public void forEachRow(Long devicePk, LocalDateTime startTime, LocalDateTime endTime,
+                           TelemetryParameter[] parameters, HistoryRowHandler handler) {
+        forEachRow(devicePk, startTime, endTime, parameters, false, handler);
+    }
+
+    /**
+     * Same as {@link #forEachRow(Long, LocalDateTime, LocalDateTime, TelemetryParameter[], HistoryRowHandler)},
+     * oldest first when ascending is set
+     */
+    public void forEachRow(Long devicePk, LocalDateTime startTime, LocalDateTime endTime,
+                           TelemetryParameter[] parameters, boolean ascending, HistoryRowHandler handler) {
+        StringBuilder sql = new StringBuilder("SELECT timestamp");
+        for (TelemetryParameter parameter : parameters) {
+            sql.append(", ").append(parameter.getColumn());
+        }
+        sql.append(" FROM telemetry_history WHERE device_id = ? AND timestamp >= ? AND timestamp <= ?"
+                + " ORDER BY timestamp ").append(ascending ? "ASC" : "DESC");
+
+        Object[] values = new Object[parameters.length];
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString());
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, devicePk);
+            ps.setTimestamp(2, Timestamp.valueOf(startTime));
+            ps.setTimestamp(3, Timestamp.valueOf(endTime));
+            return ps;
+        }, rs -> {
+            for (int i = 0; i < parameters.length; i++) {
+                values[i] = readValue(rs, i + 2, parameters[i]);
+            }
+            handler.accept(rs.getTimestamp(1).toLocalDateTime(), values);
+        }));
+    }
+
+    /**
+     * Receives one projected history row of a page together with its id
+     */
+    @FunctionalInterface
+    public interface PageRowHandler {
+        /**
+         * @param values same as {@link HistoryRowHandler#accept}; the array is reused for the next row
+         */
+        void accept(long id, LocalDateTime timestamp, Object[] values);
+    }
+
+    /**
+     * Read one page of a device's history, newest first, ordered by (timestamp, id).
+     * With a cursor only rows strictly older than (afterTimestamp, afterId) are returned, so
+     * each page is a range scan on idx_device_timestamp that starts where the previous one
+     * ended, instead of skipping an OFFSET that grows with every page.
+     * Returns the number of rows handed to the handler.
+     */
+    public int forEachRowInPage(Long devicePk, LocalDateTime startTime, LocalDateTime endTime,
+                                TelemetryParameter[] parameters, LocalDateTime afterTimestamp, Long afterId,
+                                int limit, PageRowHandler handler) {
+        StringBuilder sql = new StringBuilder("SELECT id, timestamp");
+        for (TelemetryParameter parameter : parameters) {
+            sql.append(", ").append(parameter.getColumn());
+        }
+        sql.append(" FROM telemetry_history WHERE device_id = ? AND timestamp >= ? AND timestamp <= ?");
+        if (afterTimestamp != null) {
+            sql.append(" AND (timestamp, id) < (?, ?)");
+        }
+        sql.append(" ORDER BY timestamp DESC, id DESC LIMIT ?");
+
+        Object[] values = new Object[parameters.length];
+        int[] count = {0};
+        jdbcTemplate.query(sql.toString(), ps -> {
+            int index = 1;
+            ps.setLong(index++, devicePk);
+            ps.setTimestamp(index++, Timestamp.valueOf(startTime));
+            ps.setTimestamp(index++, Timestamp.valueOf(endTime));
+            if (afterTimestamp != null) {
+                ps.setTimestamp(index++, Timestamp.valueOf(afterTimestamp));
+                ps.setLong(index++, afterId);
+            }
+            ps.setInt(index, limit);
+        }, rs -> {
+            for (int i = 0; i < parameters.length; i++) {
+                values[i] = readValue(rs, i + 3, parameters[i]);
+            }
+            handler.accept(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(), values);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    private static Double readDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Object readValue(ResultSet rs, int column, TelemetryParameter parameter) throws SQLException {
+        Object value = switch (parameter.getValueType()) {
+            case NUMBER -> rs.getDouble(column);
+            case BOOLEAN -> rs.getBoolean(column);
+            case TEXT -> rs.getString(column);
+        };
+        return rs.wasNull() ? null : value;
+    }
+}
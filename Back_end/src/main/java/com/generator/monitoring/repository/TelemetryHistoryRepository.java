@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TelemetryHistoryRepository extends JpaRepository<TelemetryHistory, Long> {
@@ -41,9 +42,7 @@ public interface TelemetryHistoryRepository extends JpaRepository<TelemetryHisto
     long countByTimestampBefore(@Param("cutoffDate") LocalDateTime cutoffDate);
 
     /**
-     * Find latest N records for a device
+     * Find the latest record of a device
      */
-    @Query("SELECT t FROM TelemetryHistory t WHERE t.device = :device " +
-           "ORDER BY t.timestamp DESC")
-    List<TelemetryHistory> findLatestByDevice(@Param("device") Device device);
+    Optional<TelemetryHistory> findFirstByDeviceOrderByTimestampDesc(Device device);
 }
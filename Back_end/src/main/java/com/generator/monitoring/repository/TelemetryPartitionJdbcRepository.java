@@ -0,0 +1,164 @@
+package com.generator.monitoring.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DDL for the range partitions of telemetry_history (PostgreSQL declarative partitioning)
+ */
+@Repository
+public class TelemetryPartitionJdbcRepository {
+
+    public static final String TABLE = "telemetry_history";
+    public static final String DEFAULT_PARTITION = TABLE + "_default";
+
+    // Same sequence name as V7__partition_telemetry_history.sql
+    public static final String ID_SEQUENCE = TABLE + "_id_seq_p";
+
+    // Bounds in a partition bound expression, e.g. FOR VALUES FROM ('2024-01-01 00:00:00') TO ('2024-01-02 00:00:00');
+    // MINVALUE does not match and gives no lower bound
+    private static final Pattern LOWER_BOUND = Pattern.compile("FROM \\('([^']+)'\\)");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * A partition with its inclusive lower and exclusive upper bound.
+     * Both bounds are null for the default partition; the lower bound is null for a MINVALUE partition.
+     */
+    public record Partition(String name, LocalDateTime lowerBound, LocalDateTime upperBound) {
+
+        public boolean isDefault() {
+            return upperBound == null;
+        }
+
+        /**
+         * Whether the partition overlaps [from, to)
+         */
+        public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            return !isDefault() && upperBound.isAfter(from) && (lowerBound == null || lowerBound.isBefore(to));
+        }
+    }
+
+    /**
+     * Whether telemetry_history exists and is a partitioned table
+     */
+    public boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE relname = ? AND relnamespace = 'public'::regnamespace",
+                String.class, TABLE);
+        return !kinds.isEmpty() && "p".equals(kinds.get(0));
+    }
+
+    public boolean hasRows() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + TABLE + ")", Boolean.class));
+    }
+
+    /**
+     * Replace the plain telemetry_history table created by Hibernate with an empty partitioned table
+     * of the same columns. Emptiness is checked again under the table lock, so rows inserted by
+     * ingest since an earlier check abort the conversion instead of being dropped.
+     * The primary key has to include the partition key, and ids come from a sequence because
+     * identity columns do not carry over to partitions.
+     * Returns false, without changing anything, when the table is not empty.
+     */
+    @Transactional
+    public boolean convertEmptyTableToPartitioned() {
+        jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+        if (hasRows()) {
+            return false;
+        }
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + TABLE + "_unpartitioned");
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + TABLE + "_unpartitioned INCLUDING DEFAULTS)"
+                + " PARTITION BY RANGE (timestamp)");
+        jdbcTemplate.execute("DROP TABLE " + TABLE + "_unpartitioned");
+
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + ID_SEQUENCE + " OWNED BY " + TABLE + ".id");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ALTER COLUMN id SET DEFAULT nextval('" + ID_SEQUENCE + "')");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD PRIMARY KEY (id, timestamp)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT fk_telemetry_history_device"
+                + " FOREIGN KEY (device_id) REFERENCES devices(id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_device_timestamp ON " + TABLE + " (device_id, timestamp)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_timestamp ON " + TABLE + " (timestamp)");
+        return true;
+    }
+
+    /**
+     * Create the partition for [from, to). Rows of that range already caught by the default
+     * partition would make the CREATE fail, so they are moved into the new partition:
+     * the default partition is detached, the partition created, the rows moved and the
+     * default partition attached again, all in one transaction.
+     * Returns the number of rows moved out of the default partition.
+     */
+    @Transactional
+    public int createPartition(String name, LocalDateTime from, LocalDateTime to) {
+        String bounds = " FOR VALUES FROM ('" + Timestamp.valueOf(from) + "') TO ('" + Timestamp.valueOf(to) + "')";
+        String range = " WHERE timestamp >= ? AND timestamp < ?";
+
+        boolean hasDefault = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, DEFAULT_PARTITION));
+        boolean defaultHasRows = hasDefault && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + range + ")", Boolean.class,
+                Timestamp.valueOf(from), Timestamp.valueOf(to)));
+
+        if (!defaultHasRows) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE + bounds);
+            return 0;
+        }
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + DEFAULT_PARTITION);
+        jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF " + TABLE + bounds);
+        int moved = jdbcTemplate.update("INSERT INTO " + name + " SELECT * FROM " + DEFAULT_PARTITION + range,
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+        jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + range, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+        return moved;
+    }
+
+    /**
+     * Create the default partition, which catches rows outside every range partition
+     * (e.g. devices with a wrong clock) instead of failing their insert
+     */
+    public void createDefaultPartition() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+    }
+
+    /**
+     * All partitions of telemetry_history with their upper bounds
+     */
+    public List<Partition> findPartitions() {
+        return jdbcTemplate.query(
+                "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i"
+                        + " JOIN pg_class c ON c.oid = i.inhrelid"
+                        + " JOIN pg_class p ON p.oid = i.inhparent"
+                        + " WHERE p.relname = ? ORDER BY c.relname",
+                (rs, rowNum) -> new Partition(rs.getString(1),
+                        parseBound(LOWER_BOUND, rs.getString(2)), parseBound(UPPER_BOUND, rs.getString(2))),
+                TABLE);
+    }
+
+    private static LocalDateTime parseBound(Pattern pattern, String boundExpression) {
+        Matcher matcher = pattern.matcher(boundExpression);
+        return matcher.find() ? Timestamp.valueOf(matcher.group(1)).toLocalDateTime() : null;
+    }
+
+    /**
+     * Detach and drop a partition; this removes all of its rows without touching the others
+     */
+    @Transactional
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + name);
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+}
@@ -0,0 +1,221 @@
+package com.generator.monitoring.repository;
+
+import com.generator.monitoring.dto.HistoryDataPoint;
+import com.generator.monitoring.dto.ParameterSummary;
+import com.generator.monitoring.enums.AggregateFunction;
+import com.generator.monitoring.enums.RollupResolution;
+import com.generator.monitoring.enums.TelemetryParameter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to the telemetry rollup tables (telemetry_rollup_1m, _15m and _1h).
+ * Upserts merge into existing rows, so a bucket can be written several times as it fills up.
+ */
+@Repository
+public class TelemetryRollupJdbcRepository {
+
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPSERT_PREFIX = " AS t (device_id, parameter, bucket_start, min_value, max_value, "
+            + "sum_value, count_value, last_value, last_timestamp) VALUES ";
+
+    private static final String UPSERT_SUFFIX = " ON CONFLICT (device_id, parameter, bucket_start) DO UPDATE SET "
+            + "min_value = LEAST(t.min_value, EXCLUDED.min_value), "
+            + "max_value = GREATEST(t.max_value, EXCLUDED.max_value), "
+            + "sum_value = t.sum_value + EXCLUDED.sum_value, "
+            + "count_value = t.count_value + EXCLUDED.count_value, "
+            + "last_value = CASE WHEN EXCLUDED.last_timestamp >= t.last_timestamp "
+            + "THEN EXCLUDED.last_value ELSE t.last_value END, "
+            + "last_timestamp = GREATEST(t.last_timestamp, EXCLUDED.last_timestamp)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aggregate of one parameter over one bucket, as accumulated in memory
+     */
+    public record RollupRow(long deviceId, String parameter, LocalDateTime bucketStart, double min, double max,
+                            double sum, long count, double last, LocalDateTime lastTimestamp) {
+    }
+
+    /**
+     * Insert or merge rows into the table of the given resolution.
+     * The merge is additive, so all statements run in one transaction: a failure leaves
+     * nothing behind and the whole batch can be retried without counting rows twice.
+     * Returns the number of affected rows.
+     */
+    @Transactional
+    public int upsert(RollupResolution resolution, List<RollupRow> rows) {
+        int affected = 0;
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<RollupRow> chunk = rows.subList(from, Math.min(rows.size(), from + MAX_ROWS_PER_STATEMENT));
+            String sql = "INSERT INTO " + resolution.getTable() + UPSERT_PREFIX
+                    + String.join(", ", Collections.nCopies(chunk.size(), ROW_PLACEHOLDERS))
+                    + UPSERT_SUFFIX;
+            affected += jdbcTemplate.update(sql, ps -> bindRows(ps, chunk));
+        }
+        return affected;
+    }
+
+    private void bindRows(PreparedStatement ps, List<RollupRow> rows) throws SQLException {
+        int index = 1;
+        for (RollupRow row : rows) {
+            ps.setLong(index++, row.deviceId());
+            ps.setString(index++, row.parameter());
+            ps.setTimestamp(index++, Timestamp.valueOf(row.bucketStart()));
+            ps.setDouble(index++, row.min());
+            ps.setDouble(index++, row.max());
+            ps.setDouble(index++, row.sum());
+            ps.setLong(index++, row.count());
+            ps.setDouble(index++, row.last());
+            ps.setTimestamp(index++, Timestamp.valueOf(row.lastTimestamp()));
+        }
+    }
+
+    /**
+     * Start of the oldest bucket in the table, null when it is empty
+     */
+    public LocalDateTime findEarliestBucket(RollupResolution resolution) {
+        Timestamp earliest = jdbcTemplate.queryForObject(
+                "SELECT MIN(bucket_start) FROM " + resolution.getTable(), Timestamp.class);
+        return earliest != null ? earliest.toLocalDateTime() : null;
+    }
+
+    public int deleteBefore(RollupResolution resolution, LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM " + resolution.getTable() + " WHERE bucket_start < ?",
+                Timestamp.valueOf(cutoff));
+    }
+
+    /**
+     * Combine rollup rows into buckets of bucketSeconds, which must be a multiple of the resolution.
+     * Returns one data point per non-empty bucket, in the same shape as the raw aggregation.
+     */
+    public List<HistoryDataPoint> aggregate(RollupResolution resolution, Long devicePk, LocalDateTime startTime,
+                                            LocalDateTime endTime, List<TelemetryParameter> parameters,
+                                            long bucketSeconds, AggregateFunction function) {
+        String sql = "SELECT FLOOR(EXTRACT(EPOCH FROM bucket_start) / ?) * ? AS bucket, parameter, "
+                + function.toRollupSql()
+                + " FROM " + resolution.getTable()
+                + " WHERE device_id = ? AND bucket_start >= ? AND bucket_start <= ? AND parameter IN ("
+                + String.join(", ", Collections.nCopies(parameters.size(), "?"))
+                + ") GROUP BY 1, 2 ORDER BY 1";
+
+        List<Object> args = new ArrayList<>(parameters.size() + 5);
+        args.add(bucketSeconds);
+        args.add(bucketSeconds);
+        args.add(devicePk);
+        args.add(Timestamp.valueOf(startTime));
+        args.add(Timestamp.valueOf(endTime));
+        for (TelemetryParameter parameter : parameters) {
+            args.add(parameter.getKey());
+        }
+
+        Map<Long, Map<String, Object>> buckets = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            Object value = function == AggregateFunction.COUNT ? rs.getLong(3) : rs.getDouble(3);
+            if (!rs.wasNull()) {
+                buckets.computeIfAbsent(rs.getLong(1), bucket -> new LinkedHashMap<>())
+                        .put(rs.getString(2), value);
+            }
+        }, args.toArray());
+
+        List<HistoryDataPoint> points = new ArrayList<>(buckets.size());
+        for (Map.Entry<Long, Map<String, Object>> entry : buckets.entrySet()) {
+            points.add(new HistoryDataPoint(
+                    LocalDateTime.ofEpochSecond(entry.getKey(), 0, ZoneOffset.UTC), entry.getValue()));
+        }
+        return points;
+    }
+
+    /**
+     * Statistics of each parameter over a time range, read from the rollup buckets.
+     * Count, min, max and avg are exact. The median and 95th percentile are the bucket averages at
+     * which the running sample count reaches half and 95% of the total, and the time outside the
+     * limits is the length of the buckets whose average is outside them (NaN limits when a parameter has none).
+     */
+    public List<ParameterSummary> summarize(RollupResolution resolution, Long devicePk, LocalDateTime startTime,
+                                            LocalDateTime endTime, List<TelemetryParameter> parameters,
+                                            double[] minLimits, double[] maxLimits) {
+        String sql = "SELECT b.parameter, SUM(b.count_value), MIN(b.min_value), MAX(b.max_value), "
+                + "SUM(b.sum_value) / SUM(b.count_value), "
+                + "MIN(b.avg_value) FILTER (WHERE b.cumulative >= 0.5 * b.total), "
+                + "MIN(b.avg_value) FILTER (WHERE b.cumulative >= 0.95 * b.total), "
+                + "SUM(CASE WHEN b.avg_value < b.min_limit OR b.avg_value > b.max_limit THEN "
+                + resolution.getSeconds() + " ELSE 0 END)"
+                + " FROM (SELECT r.parameter, r.min_value, r.max_value, r.sum_value, r.count_value,"
+                + " l.min_limit, l.max_limit, r.sum_value / r.count_value AS avg_value,"
+                + " SUM(r.count_value) OVER (PARTITION BY r.parameter ORDER BY r.sum_value / r.count_value) AS cumulative,"
+                + " SUM(r.count_value) OVER (PARTITION BY r.parameter) AS total"
+                + " FROM " + resolution.getTable() + " r JOIN (VALUES "
+                + String.join(", ", Collections.nCopies(parameters.size(),
+                        "(?, CAST(? AS double precision), CAST(? AS double precision))"))
+                + ") AS l (parameter, min_limit, max_limit) ON l.parameter = r.parameter"
+                + " WHERE r.device_id = ? AND r.bucket_start >= ? AND r.bucket_start <= ? AND r.count_value > 0) b"
+                + " GROUP BY b.parameter";
+
+        Map<String, ParameterSummary> summaries = new LinkedHashMap<>();
+        for (int i = 0; i < parameters.size(); i++) {
+            TelemetryParameter parameter = parameters.get(i);
+            summaries.put(parameter.getKey(), new ParameterSummary(parameter.getKey(), parameter.getDisplayName(),
+                    0, null, null, null, null, null,
+                    Double.isNaN(minLimits[i]) ? null : minLimits[i],
+                    Double.isNaN(maxLimits[i]) ? null : maxLimits[i],
+                    null, true));
+        }
+
+        jdbcTemplate.query(sql, ps -> {
+            int index = 1;
+            for (int i = 0; i < parameters.size(); i++) {
+                ps.setString(index++, parameters.get(i).getKey());
+                setLimit(ps, index++, minLimits[i]);
+                setLimit(ps, index++, maxLimits[i]);
+            }
+            ps.setLong(index++, devicePk);
+            ps.setTimestamp(index++, Timestamp.valueOf(startTime));
+            ps.setTimestamp(index, Timestamp.valueOf(endTime));
+        }, rs -> {
+            ParameterSummary summary = summaries.get(rs.getString(1));
+            summary.setSampleCount(rs.getLong(2));
+            summary.setMin(readDouble(rs, 3));
+            summary.setMax(readDouble(rs, 4));
+            summary.setAvg(readDouble(rs, 5));
+            summary.setP50(readDouble(rs, 6));
+            summary.setP95(readDouble(rs, 7));
+            if (summary.getThresholdMin() != null) {
+                summary.setSecondsOutsideThreshold(rs.getLong(8));
+            }
+        });
+        return new ArrayList<>(summaries.values());
+    }
+
+    private static void setLimit(PreparedStatement ps, int index, double limit) throws SQLException {
+        if (Double.isNaN(limit)) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, limit);
+        }
+    }
+
+    private static Double readDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+}
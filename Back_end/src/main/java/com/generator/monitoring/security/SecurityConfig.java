@@ -68,7 +68,10 @@ public class SecurityConfig {
                         .requestMatchers("/api/devices/register").permitAll()
                         .requestMatchers("/api/devices").permitAll()
                         .requestMatchers("/api/devices/*/dashboard").permitAll()
+                        .requestMatchers("/api/devices/*/latest").permitAll()
+                        .requestMatchers("/api/devices/*/alarms/active").permitAll()
                         .requestMatchers("/api/history/**").permitAll()
+                        .requestMatchers("/api/alarms/**").permitAll()
                         .requestMatchers("/api/predictions/**").permitAll()
                         .requestMatchers("/ws/**").permitAll()
                         .anyRequest().authenticated()
@@ -0,0 +1,192 @@
+package com.generator.monitoring.service;
+
+import com.generator.monitoring.dto.AlarmData;
+import com.generator.monitoring.dto.AlarmEventDto;
+import com.generator.monitoring.dto.TelemetryData;
+import com.generator.monitoring.entity.AlarmEvent;
+import com.generator.monitoring.entity.Device;
+import com.generator.monitoring.enums.AlarmSource;
+import com.generator.monitoring.exception.DeviceNotFoundException;
+import com.generator.monitoring.exception.InvalidInputException;
+import com.generator.monitoring.pipeline.IngestMessage;
+import com.generator.monitoring.repository.AlarmEventJdbcRepository;
+import com.generator.monitoring.repository.AlarmEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Alarm event store.
+ * Backend alarm transitions and changes of the device-reported alarm string are
+ * collected by the ingest pipeline and written here in batches.
+ */
+@Service
+public class AlarmEventService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlarmEventService.class);
+
+    public static final String DEVICE_ALARM_PARAMETER = "DEVICE_ALARM";
+    private static final int MAX_PAGE_SIZE = 500;
+
+    @Autowired
+    private AlarmEventRepository alarmEventRepository;
+
+    @Autowired
+    private AlarmEventJdbcRepository alarmEventJdbcRepository;
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    // Last alarm string reported by each device, so only changes are stored
+    private final Map<String, String> lastDeviceAlarms = new ConcurrentHashMap<>();
+
+    /**
+     * Turn the alarms of one ingested sample into events and add them to the batch.
+     * Must be called in arrival order per device.
+     */
+    public void collectEvents(IngestMessage message, List<AlarmEvent> events) {
+        Device device = message.getDevice();
+        TelemetryData telemetry = message.getTelemetry();
+
+        if (message.getBackendAlarms() != null) {
+            for (AlarmData alarm : message.getBackendAlarms()) {
+                events.add(new AlarmEvent(null, device, alarm.getTimestamp(), AlarmSource.BACKEND,
+                        alarm.getParameter(), alarm.getLabel(), alarm.getSeverity(), alarm.getState(),
+                        truncate(alarm.getMessage()), alarm.getValue()));
+            }
+        }
+
+        String current = deviceAlarm(telemetry);
+        String previous = current != null
+                ? lastDeviceAlarms.put(message.getDeviceId(), current)
+                : lastDeviceAlarms.remove(message.getDeviceId());
+
+        if (current != null && !current.equals(previous)) {
+            events.add(deviceAlarmEvent(device, telemetry.getTimestamp(), AlarmStateTracker.RAISED, current));
+        } else if (current == null && previous != null) {
+            events.add(deviceAlarmEvent(device, telemetry.getTimestamp(), AlarmStateTracker.CLEARED, previous));
+        }
+    }
+
+    /**
+     * Write a batch of events; failures are logged and never affect telemetry persistence
+     */
+    public void save(List<AlarmEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        try {
+            alarmEventJdbcRepository.insertBatch(events);
+            logger.debug("Saved {} alarm events", events.size());
+        } catch (DataAccessException e) {
+            logger.error("Error saving {} alarm events: {}", events.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Page through stored events, newest first. All filters are optional.
+     */
+    @Transactional(readOnly = true)
+    public Page<AlarmEventDto> searchEvents(String deviceId, String parameter, String severity, String state,
+                                            AlarmSource source, LocalDateTime startTime, LocalDateTime endTime,
+                                            int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new InvalidInputException("Page must be >= 0 and size must be >= 1");
+        }
+        if (startTime != null && endTime != null && startTime.isAfter(endTime)) {
+            throw new InvalidInputException("Start time must be before end time");
+        }
+
+        Specification<AlarmEvent> spec = Specification.where(null);
+
+        if (deviceId != null && !deviceId.isBlank()) {
+            Device device = deviceRegistry.get(deviceId.trim());
+            if (device == null) {
+                throw new DeviceNotFoundException("Device not found with ID: " + deviceId);
+            }
+            Long id = device.getId();
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("device").get("id"), id));
+        }
+        if (parameter != null && !parameter.isBlank()) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("parameter"), parameter.trim()));
+        }
+        if (severity != null && !severity.isBlank()) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("severity"), severity.trim().toUpperCase()));
+        }
+        if (state != null && !state.isBlank()) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("state"), state.trim().toUpperCase()));
+        }
+        if (source != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("source"), source));
+        }
+        if (startTime != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("timestamp"), startTime));
+        }
+        if (endTime != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("timestamp"), endTime));
+        }
+
+        PageRequest pageRequest = PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE),
+                Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id")));
+
+        return alarmEventRepository.findAll(spec, pageRequest).map(this::mapToDto);
+    }
+
+    public void remove(String deviceId) {
+        lastDeviceAlarms.remove(deviceId);
+    }
+
+    private AlarmEvent deviceAlarmEvent(Device device, LocalDateTime timestamp, String state, String alarm) {
+        // Device alarms are shown as warnings on the dashboard
+        return new AlarmEvent(null, device, timestamp, AlarmSource.DEVICE, DEVICE_ALARM_PARAMETER, null,
+                "WARNING", state, truncate(alarm), null);
+    }
+
+    /**
+     * Alarm text reported by the device, null when it reports none
+     */
+    private String deviceAlarm(TelemetryData telemetry) {
+        if (telemetry.getAlarm() != null && !telemetry.getAlarm().isBlank()) {
+            return telemetry.getAlarm().trim();
+        }
+        if (telemetry.getDeviceAlarms() != null && !telemetry.getDeviceAlarms().isEmpty()) {
+            return String.join("; ", telemetry.getDeviceAlarms());
+        }
+        return null;
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= AlarmEvent.MAX_MESSAGE_LENGTH) {
+            return message;
+        }
+        return message.substring(0, AlarmEvent.MAX_MESSAGE_LENGTH);
+    }
+
+    private AlarmEventDto mapToDto(AlarmEvent event) {
+        return new AlarmEventDto(
+                event.getId(),
+                event.getDevice().getDeviceId(),
+                event.getTimestamp(),
+                event.getSource(),
+                event.getParameter(),
+                event.getLabel(),
+                event.getSeverity(),
+                event.getState(),
+                event.getMessage(),
+                event.getValue()
+        );
+    }
+}
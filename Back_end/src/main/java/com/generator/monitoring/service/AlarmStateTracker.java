@@ -0,0 +1,125 @@
+package com.generator.monitoring.service;
+
+import com.generator.monitoring.dto.AlarmData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-device, per-value alarm state machine.
+ * A threshold violation raises an alarm once; it stays raised until the value has
+ * come back inside the limits by a hysteresis band and the minimum hold time has passed.
+ * Only RAISED and CLEARED transitions are reported, never the steady state.
+ */
+@Service
+public class AlarmStateTracker {
+
+    public static final int NORMAL = 0;
+    public static final int BELOW_MIN = 1;
+    public static final int ABOVE_MAX = 2;
+
+    public static final String RAISED = "RAISED";
+    public static final String CLEARED = "CLEARED";
+
+    // Fraction of the (max - min) range a value must move back inside the limits before clearing
+    @Value("${alarms.hysteresis-fraction:0.02}")
+    private double hysteresisFraction;
+
+    // Minimum time an alarm stays raised before it may clear
+    @Value("${alarms.min-hold-ms:10000}")
+    private long minHoldMs;
+
+    private final Map<String, DeviceAlarmState> states = new ConcurrentHashMap<>();
+
+    public DeviceAlarmState getState(String deviceId, int size) {
+        // Plain lookup first: computeIfAbsent would allocate its capturing lambda on every sample
+        DeviceAlarmState state = states.get(deviceId);
+        return state != null ? state : states.computeIfAbsent(deviceId, id -> new DeviceAlarmState(size));
+    }
+
+    /**
+     * Advance the state of one checked value.
+     * Returns the new state (NORMAL, BELOW_MIN or ABOVE_MAX) when a transition happened, otherwise -1.
+     */
+    public int update(DeviceAlarmState state, int key, double value, double min, double max, long now) {
+        int current = state.states[key];
+        int violation = value < min ? BELOW_MIN : (value > max ? ABOVE_MAX : NORMAL);
+
+        if (violation != NORMAL) {
+            if (violation == current) {
+                return -1;
+            }
+            // Newly raised, or jumped straight from one limit to the other
+            state.states[key] = (byte) violation;
+            state.since[key] = now;
+            return violation;
+        }
+
+        if (current == NORMAL || now - state.since[key] < minHoldMs) {
+            return -1;
+        }
+
+        double band = (max - min) * hysteresisFraction;
+        boolean cleared = current == BELOW_MIN ? value >= min + band : value <= max - band;
+        if (!cleared) {
+            return -1;
+        }
+
+        state.states[key] = NORMAL;
+        state.since[key] = now;
+        return NORMAL;
+    }
+
+    /**
+     * Currently raised alarms of a device
+     */
+    public List<AlarmData> getActiveAlarms(String deviceId) {
+        DeviceAlarmState state = states.get(deviceId);
+        if (state == null) {
+            return Collections.emptyList();
+        }
+
+        List<AlarmData> alarms = new ArrayList<>();
+        for (int i = 0; i < state.active.length(); i++) {
+            AlarmData alarm = state.active.get(i);
+            if (alarm != null) {
+                alarms.add(alarm);
+            }
+        }
+        return alarms;
+    }
+
+    public void remove(String deviceId) {
+        states.remove(deviceId);
+    }
+
+    /**
+     * Alarm state of one device, indexed by the key of each checked value.
+     * Only the ingest worker that owns the device writes to it.
+     */
+    public static class DeviceAlarmState {
+        private final byte[] states;
+        private final long[] since;
+        private final AtomicReferenceArray<AlarmData> active;
+
+        DeviceAlarmState(int size) {
+            this.states = new byte[size];
+            this.since = new long[size];
+            this.active = new AtomicReferenceArray<>(size);
+        }
+
+        public AlarmData getActive(int key) {
+            return active.get(key);
+        }
+
+        public void setActive(int key, AlarmData alarm) {
+            active.set(key, alarm);
+        }
+    }
+}
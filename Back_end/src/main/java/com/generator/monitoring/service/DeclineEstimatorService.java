@@ -0,0 +1,270 @@
+package com.generator.monitoring.service;
+
+import com.generator.monitoring.dto.RefuelEventDto;
+import com.generator.monitoring.dto.TelemetryData;
+import com.generator.monitoring.entity.Device;
+import com.generator.monitoring.entity.RefuelEvent;
+import com.generator.monitoring.enums.PredictionSeries;
+import com.generator.monitoring.exception.DeviceNotFoundException;
+import com.generator.monitoring.exception.InvalidInputException;
+import com.generator.monitoring.prediction.DeclineEstimator;
+import com.generator.monitoring.prediction.StepDetector;
+import com.generator.monitoring.prediction.StepDetector.Step;
+import com.generator.monitoring.repository.DeclineEstimatorJdbcRepository;
+import com.generator.monitoring.repository.DeclineEstimatorJdbcRepository.StateRow;
+import com.generator.monitoring.repository.RefuelEventRepository;
+import com.generator.monitoring.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a fuel and a battery decline estimator per device, updated with every telemetry sample.
+ * Samples pass a step detector first: glitches are dropped, and at a refuel, charge or sudden drop
+ * the estimator restarts at the new level. Refuels are stored as refuel events.
+ * Predictions read the current rate from memory. Estimators that changed are checkpointed to
+ * decline_estimator_state on a fixed interval and restored on startup.
+ */
+@Service
+public class DeclineEstimatorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeclineEstimatorService.class);
+
+    @Autowired
+    private DeclineEstimatorJdbcRepository declineEstimatorJdbcRepository;
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private RefuelEventRepository refuelEventRepository;
+
+    // How fast old samples fade out; a sample this old has about a third of the weight of a new one
+    @Value("${predictions.estimator.time-constant-minutes:120}")
+    private double timeConstantMinutes;
+
+    // Samples must span at least this long before a rate is reported
+    @Value("${predictions.estimator.min-span-minutes:15}")
+    private double minSpanMinutes;
+
+    // Minimum change, in percent, that counts as a refuel or a sudden drop of the fuel level
+    @Value("${predictions.events.fuel-step:5}")
+    private double fuelStep;
+
+    // Minimum change that counts as a charge or a sudden drop of the battery
+    @Value("${predictions.events.battery-step:5}")
+    private double batteryStep;
+
+    // Samples that must stay away from the old level before a step is confirmed
+    @Value("${predictions.events.confirm-samples:3}")
+    private int confirmSamples;
+
+    // A rise is complete once the level has not climbed for this long
+    @Value("${predictions.events.settle-minutes:5}")
+    private long settleMinutes;
+
+    // Fuel tank size used to estimate refuel volumes, 0 when unknown
+    @Value("${predictions.events.fuel-tank-litres:0}")
+    private double fuelTankLitres;
+
+    private final Map<String, DeviceEstimators> estimators = new ConcurrentHashMap<>();
+
+    // Devices whose estimators changed since the last checkpoint
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void load() {
+        Map<Long, Device> devicesById = new HashMap<>();
+        for (Device device : deviceRegistry.getAll()) {
+            devicesById.put(device.getId(), device);
+        }
+
+        int restored = 0;
+        for (StateRow row : declineEstimatorJdbcRepository.findAll()) {
+            Device device = devicesById.get(row.deviceId());
+            if (device != null) {
+                estimatorsOf(device).get(row.series()).restore(row.state());
+                restored++;
+            }
+        }
+        logger.info("Restored {} decline estimators", restored);
+    }
+
+    /**
+     * Feed a telemetry sample to the estimators of its device.
+     * Called by the ingest worker that owns the device; samples of deleted devices are ignored.
+     */
+    public void record(Device device, TelemetryData telemetry) {
+        if (deviceRegistry.get(device.getDeviceId()) == null) {
+            return;
+        }
+        DeviceEstimators deviceEstimators = estimatorsOf(device);
+        boolean updated = false;
+        for (PredictionSeries series : PredictionSeries.values()) {
+            double value = series.getParameter().getNumericValue(telemetry);
+            if (!Double.isNaN(value) && telemetry.getTimestamp() != null) {
+                Step step = deviceEstimators.detector(series).accept(telemetry.getTimestamp(), value);
+                if (step != null) {
+                    onStep(device, series, step);
+                }
+                updated = true;
+            }
+        }
+        if (updated) {
+            dirty.add(device.getDeviceId());
+        }
+        // The device may have been deleted while we were updating; don't keep estimators it re-created
+        if (deviceRegistry.get(device.getDeviceId()) == null) {
+            estimators.remove(device.getDeviceId());
+            dirty.remove(device.getDeviceId());
+        }
+    }
+
+    private void onStep(Device device, PredictionSeries series, Step step) {
+        double change = step.levelAfter() - step.levelBefore();
+        if (!step.rise()) {
+            logger.info("Device {}: {} dropped from {} to {} at {}, prediction restarted",
+                    device.getDeviceId(), series, step.levelBefore(), step.levelAfter(), step.startedAt());
+            return;
+        }
+        if (series != PredictionSeries.FUEL) {
+            logger.info("Device {}: {} charged from {} to {} between {} and {}",
+                    device.getDeviceId(), series, step.levelBefore(), step.levelAfter(), step.startedAt(), step.endedAt());
+            return;
+        }
+
+        Double litres = fuelTankLitres > 0 ? change / 100.0 * fuelTankLitres : null;
+        try {
+            refuelEventRepository.save(new RefuelEvent(null, device, step.startedAt(), step.endedAt(),
+                    step.levelBefore(), step.levelAfter(), change, litres));
+            logger.info("Device {}: refuel from {}% to {}% between {} and {}",
+                    device.getDeviceId(), step.levelBefore(), step.levelAfter(), step.startedAt(), step.endedAt());
+        } catch (Exception e) {
+            logger.error("Error saving refuel event for device {}: {}", device.getDeviceId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Refuels of a device that started in the time range, newest first
+     */
+    public List<RefuelEventDto> getRefuelEvents(String deviceId, LocalDateTime startTime, LocalDateTime endTime) {
+        Device device = deviceRegistry.get(deviceId);
+        if (device == null) {
+            throw new DeviceNotFoundException("Device not found: " + deviceId);
+        }
+        if (startTime == null || endTime == null || startTime.isAfter(endTime)) {
+            throw new InvalidInputException("A start time before the end time is required");
+        }
+
+        List<RefuelEventDto> events = new ArrayList<>();
+        for (RefuelEvent event : refuelEventRepository.findByDeviceAndTimeRange(device, startTime, endTime)) {
+            events.add(new RefuelEventDto(event.getId(), deviceId, event.getStartedAt(), event.getEndedAt(),
+                    event.getLevelBefore(), event.getLevelAfter(), event.getAddedPercent(), event.getAddedLitres()));
+        }
+        return events;
+    }
+
+    /**
+     * Estimator of one series of a device, null when the device has not reported yet
+     */
+    public DeclineEstimator getEstimator(String deviceId, PredictionSeries series) {
+        DeviceEstimators deviceEstimators = estimators.get(deviceId);
+        return deviceEstimators != null ? deviceEstimators.get(series) : null;
+    }
+
+    /**
+     * Delete the stored state of a device; the estimators are dropped once the current transaction commits,
+     * so a rolled back delete keeps them
+     */
+    public void remove(Device device) {
+        String deviceId = device.getDeviceId();
+        declineEstimatorJdbcRepository.deleteByDevice(device.getId());
+        refuelEventRepository.deleteByDevice(device);
+        TransactionUtils.afterCommit(() -> {
+            estimators.remove(deviceId);
+            dirty.remove(deviceId);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${predictions.estimator.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<String> deviceIds = new ArrayList<>(dirty);
+        List<StateRow> rows = new ArrayList<>(deviceIds.size() * PredictionSeries.values().length);
+        for (String deviceId : deviceIds) {
+            dirty.remove(deviceId);
+            DeviceEstimators deviceEstimators = estimators.get(deviceId);
+            if (deviceEstimators == null || deviceRegistry.get(deviceId) == null) {
+                continue;
+            }
+            for (PredictionSeries series : PredictionSeries.values()) {
+                DeclineEstimator.State state = deviceEstimators.get(series).snapshot();
+                if (state.samples() > 0) {
+                    rows.add(new StateRow(deviceEstimators.devicePk, series, state));
+                }
+            }
+        }
+
+        try {
+            declineEstimatorJdbcRepository.upsert(rows);
+            logger.debug("Checkpointed {} decline estimators of {} devices", rows.size(), deviceIds.size());
+        } catch (Exception e) {
+            logger.error("Error checkpointing decline estimators: {}", e.getMessage(), e);
+            dirty.addAll(deviceIds);
+        }
+    }
+
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        checkpoint();
+    }
+
+    private DeviceEstimators estimatorsOf(Device device) {
+        return estimators.computeIfAbsent(device.getDeviceId(), id -> new DeviceEstimators(device.getId()));
+    }
+
+    /**
+     * Estimators and step detectors of one device, indexed by series
+     */
+    private class DeviceEstimators {
+        private final long devicePk;
+        private final DeclineEstimator[] bySeries = new DeclineEstimator[PredictionSeries.values().length];
+        private final StepDetector[] detectors = new StepDetector[PredictionSeries.values().length];
+
+        DeviceEstimators(long devicePk) {
+            this.devicePk = devicePk;
+            for (PredictionSeries series : PredictionSeries.values()) {
+                DeclineEstimator estimator = new DeclineEstimator(timeConstantMinutes / 60.0, minSpanMinutes / 60.0);
+                double step = series == PredictionSeries.FUEL ? fuelStep : batteryStep;
+                bySeries[series.ordinal()] = estimator;
+                detectors[series.ordinal()] = new StepDetector(estimator, step, confirmSamples,
+                        Duration.ofMinutes(settleMinutes));
+            }
+        }
+
+        DeclineEstimator get(PredictionSeries series) {
+            return bySeries[series.ordinal()];
+        }
+
+        StepDetector detector(PredictionSeries series) {
+            return detectors[series.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.generator.monitoring.service;
+
+import com.generator.monitoring.entity.Device;
+import com.generator.monitoring.repository.DeviceRepository;
+import com.generator.monitoring.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of all devices, keyed by device ID.
+ * Loaded at startup and kept in sync by DeviceService, so the ingest hot path
+ * resolves devices with a map lookup instead of a database query.
+ * Entries are detached copies without the user association.
+ */
+@Service
+public class DeviceRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceRegistry.class);
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    private final Map<String, Device> devices = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        for (Device device : deviceRepository.findAll()) {
+            devices.put(device.getDeviceId(), copyOf(device));
+        }
+        logger.info("Loaded {} devices into registry", devices.size());
+    }
+
+    public Device get(String deviceId) {
+        return devices.get(deviceId);
+    }
+
+    public Collection<Device> getAll() {
+        return Collections.unmodifiableCollection(devices.values());
+    }
+
+    /**
+     * Add or refresh a device once the surrounding transaction commits
+     */
+    public void register(Device device) {
+        Device copy = copyOf(device);
+        TransactionUtils.afterCommit(() -> devices.put(copy.getDeviceId(), copy));
+    }
+
+    /**
+     * Remove a device once the surrounding transaction commits
+     */
+    public void remove(String deviceId) {
+        TransactionUtils.afterCommit(() -> devices.remove(deviceId));
+    }
+
+    private Device copyOf(Device device) {
+        Device copy = new Device();
+        copy.setId(device.getId());
+        copy.setDeviceId(device.getDeviceId());
+        copy.setName(device.getName());
+        copy.setLocation(device.getLocation());
+        copy.setActive(device.getActive());
+        copy.setLicenseEnabled(device.getLicenseEnabled());
+        copy.setCreatedAt(device.getCreatedAt());
+        copy.setLastSeenAt(device.getLastSeenAt());
+        return copy;
+    }
+}
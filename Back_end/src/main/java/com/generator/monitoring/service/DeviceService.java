@@ -28,6 +28,27 @@ public class DeviceService {
     @Autowired
     private ThresholdService thresholdService;
 
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private LastSeenTracker lastSeenTracker;
+
+    @Autowired
+    private LatestTelemetryCache latestTelemetryCache;
+
+    @Autowired
+    private DeclineEstimatorService declineEstimatorService;
+
+    @Autowired
+    private AlarmStateTracker alarmStateTracker;
+
+    @Autowired
+    private AlarmEventService alarmEventService;
+
+    @Autowired
+    private TelemetryIngestService telemetryIngestService;
+
     public List<DeviceDto> getAllDevices() {
         return deviceRepository.findAll().stream()
                 .map(this::mapToDto)
@@ -167,6 +188,7 @@ public class DeviceService {
         device.setActive(true);
 
         Device saved = deviceRepository.save(device);
+        deviceRegistry.register(saved);
 
         // Initialize default thresholds
         thresholdService.initializeDefaultThresholds(saved);
@@ -229,6 +251,7 @@ public class DeviceService {
         device.setActive(true);
 
         Device saved = deviceRepository.save(device);
+        deviceRegistry.register(saved);
 
         // Initialize default thresholds
         thresholdService.initializeDefaultThresholds(saved);
@@ -261,6 +284,7 @@ public class DeviceService {
         }
 
         Device saved = deviceRepository.save(device);
+        deviceRegistry.register(saved);
 
         logger.info("Successfully updated device: {}", finalDeviceId);
 
@@ -317,7 +341,16 @@ public class DeviceService {
         }
 
         // Delete the device (this will also remove all user associations)
+        // The registry forgets the device first on commit, so ingest stops re-creating its state
+        deviceRegistry.remove(device.getDeviceId());
+        telemetryIngestService.remove(device.getDeviceId());
+        lastSeenTracker.remove(device);
+        thresholdService.remove(device);
+        declineEstimatorService.remove(device);
         deviceRepository.delete(device);
+        alarmStateTracker.remove(device.getDeviceId());
+        alarmEventService.remove(device.getDeviceId());
+        latestTelemetryCache.remove(device.getDeviceId());
 
         logger.info("Successfully deleted device: {}", finalDeviceId);
     }
@@ -361,6 +394,7 @@ public class DeviceService {
         }
 
         Device saved = deviceRepository.save(device);
+        deviceRegistry.register(saved);
 
         logger.info("Successfully updated device info for device ID: {}", finalDeviceId);
 
@@ -393,6 +427,7 @@ public class DeviceService {
 
         device.setLicenseEnabled(enabled);
         Device saved = deviceRepository.save(device);
+        deviceRegistry.register(saved);
 
         logger.info("License for device {} set to {}", deviceId, enabled);
 
@@ -406,7 +441,15 @@ public class DeviceService {
         Device device = deviceRepository.findByDeviceId(deviceId.trim())
                 .orElseThrow(() -> new DeviceNotFoundException("Device not found with ID: " + deviceId));
 
+        deviceRegistry.remove(device.getDeviceId());
+        telemetryIngestService.remove(device.getDeviceId());
+        lastSeenTracker.remove(device);
+        thresholdService.remove(device);
+        declineEstimatorService.remove(device);
         deviceRepository.delete(device);
+        alarmStateTracker.remove(device.getDeviceId());
+        alarmEventService.remove(device.getDeviceId());
+        latestTelemetryCache.remove(device.getDeviceId());
 
         logger.info("Admin successfully deleted device: {}", deviceId);
     }
@@ -419,7 +462,7 @@ public class DeviceService {
                 device.getLocation(),
                 device.getActive(),
                 device.getLicenseEnabled() != null ? device.getLicenseEnabled() : true,
-                device.getLastSeenAt()
+                lastSeenTracker.getLastSeen(device)
         );
     }
 }
@@ -0,0 +1,257 @@
+package com.generator.monitoring.service;
+
+import com.generator.monitoring.entity.Device;
+import com.generator.monitoring.enums.TelemetryParameter;
+import com.generator.monitoring.exception.DeviceAccessDeniedException;
+import com.generator.monitoring.exception.DeviceNotFoundException;
+import com.generator.monitoring.exception.InvalidInputException;
+import com.generator.monitoring.repository.DeviceRepository;
+import com.generator.monitoring.repository.TelemetryHistoryJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk CSV export of telemetry history for one or many devices.
+ * Every device is read oldest first through its own database cursor on a shared worker pool.
+ * Workers format rows into chunks of whole CSV lines and hand them over a bounded queue
+ * to the request thread, which writes them to the response. Heap use is limited to the
+ * queue and one chunk per worker, whatever the number of devices or rows.
+ */
+@Service
+public class HistoryExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryExportService.class);
+
+    // Characters per chunk handed from a device reader to the response writer
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final long OFFER_TIMEOUT_MS = 500;
+
+    @Autowired
+    private TelemetryHistoryJdbcRepository telemetryHistoryJdbcRepository;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Value("${export.worker-threads:4}")
+    private int workerThreads;
+
+    @Value("${export.max-devices:200}")
+    private int maxDevices;
+
+    @Value("${export.max-range-days:31}")
+    private int maxRangeDays;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "export-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Resolve the devices of an export; all devices when none are given, which only admins may ask for
+     */
+    public List<Device> resolveDevices(List<String> deviceIds, LocalDateTime startTime, LocalDateTime endTime,
+                                       boolean admin) {
+        if (startTime == null || endTime == null || startTime.isAfter(endTime)) {
+            throw new InvalidInputException("A start time before the end time is required");
+        }
+        if (startTime.plusDays(maxRangeDays).isBefore(endTime)) {
+            throw new InvalidInputException("At most " + maxRangeDays + " days can be exported at once");
+        }
+
+        List<Device> devices;
+        if (deviceIds == null || deviceIds.isEmpty()) {
+            if (!admin) {
+                throw new DeviceAccessDeniedException("Exporting all devices requires an admin login");
+            }
+            devices = deviceRepository.findAll();
+        } else {
+            devices = new ArrayList<>(deviceIds.size());
+            for (String deviceId : deviceIds) {
+                devices.add(deviceRepository.findByDeviceId(deviceId)
+                        .orElseThrow(() -> new DeviceNotFoundException("Device not found: " + deviceId)));
+            }
+        }
+
+        if (devices.size() > maxDevices) {
+            throw new InvalidInputException("At most " + maxDevices + " devices can be exported at once");
+        }
+        return devices;
+    }
+
+    /**
+     * Write the history of the devices as CSV with a device_id, timestamp and one column per parameter.
+     * Returns the number of written rows.
+     */
+    public long exportCsv(List<Device> devices, LocalDateTime startTime, LocalDateTime endTime,
+                          TelemetryParameter[] parameters, boolean gzip, OutputStream out) throws IOException {
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        ExportState state = new ExportState();
+
+        List<Future<?>> readers = new ArrayList<>(devices.size());
+        for (Device device : devices) {
+            readers.add(executor.submit(() -> readDevice(device, startTime, endTime, parameters, queue, state)));
+        }
+
+        long rows = 0;
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(out, CHUNK_SIZE) : null;
+        Writer writer = new OutputStreamWriter(gzip ? gzipStream : out, StandardCharsets.UTF_8);
+        try {
+            writer.write(header(parameters));
+
+            int finished = 0;
+            while (finished < devices.size()) {
+                Chunk chunk = queue.take();
+                if (chunk.error != null) {
+                    throw new IOException("Export of device " + chunk.deviceId + " failed", chunk.error);
+                }
+                if (chunk.text == null) {
+                    finished++;
+                    continue;
+                }
+                writer.write(chunk.text);
+                rows += chunk.rows;
+            }
+
+            writer.flush();
+            if (gzipStream != null) {
+                gzipStream.finish();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } finally {
+            // Stops the readers early when the client went away or a device failed
+            state.cancelled = true;
+            readers.forEach(reader -> reader.cancel(false));
+        }
+
+        logger.info("Exported {} rows of {} devices from {} to {}", rows, devices.size(), startTime, endTime);
+        return rows;
+    }
+
+    private void readDevice(Device device, LocalDateTime startTime, LocalDateTime endTime,
+                            TelemetryParameter[] parameters, BlockingQueue<Chunk> queue, ExportState state) {
+        String devicePrefix = csvValue(device.getDeviceId()) + ",";
+        StringBuilder buffer = new StringBuilder(CHUNK_SIZE + 1024);
+        int[] bufferedRows = {0};
+
+        try {
+            telemetryHistoryJdbcRepository.forEachRow(device.getId(), startTime, endTime, parameters, true,
+                    (timestamp, values) -> {
+                        buffer.append(devicePrefix).append(timestamp);
+                        for (Object value : values) {
+                            buffer.append(',');
+                            if (value != null) {
+                                buffer.append(value instanceof String text ? csvValue(text) : value.toString());
+                            }
+                        }
+                        buffer.append('\n');
+                        bufferedRows[0]++;
+
+                        if (buffer.length() >= CHUNK_SIZE) {
+                            handOver(queue, state, new Chunk(device.getDeviceId(), buffer.toString(),
+                                    bufferedRows[0], null));
+                            buffer.setLength(0);
+                            bufferedRows[0] = 0;
+                        }
+                    });
+
+            if (bufferedRows[0] > 0) {
+                handOver(queue, state, new Chunk(device.getDeviceId(), buffer.toString(), bufferedRows[0], null));
+            }
+            handOver(queue, state, new Chunk(device.getDeviceId(), null, 0, null));
+        } catch (ExportCancelledException e) {
+            logger.debug("Export of device {} cancelled", device.getDeviceId());
+        } catch (Exception e) {
+            logger.error("Error exporting device {}: {}", device.getDeviceId(), e.getMessage(), e);
+            try {
+                handOver(queue, state, new Chunk(device.getDeviceId(), null, 0, e));
+            } catch (ExportCancelledException ignored) {
+                // Nobody is reading anymore
+            }
+        }
+    }
+
+    /**
+     * Put a chunk on the queue, giving up once the export is cancelled
+     */
+    private void handOver(BlockingQueue<Chunk> queue, ExportState state, Chunk chunk) {
+        if (state.cancelled) {
+            throw new ExportCancelledException();
+        }
+        try {
+            while (!queue.offer(chunk, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (state.cancelled) {
+                    throw new ExportCancelledException();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExportCancelledException();
+        }
+    }
+
+    private static String header(TelemetryParameter[] parameters) {
+        StringBuilder header = new StringBuilder("device_id,timestamp");
+        for (TelemetryParameter parameter : parameters) {
+            header.append(',').append(parameter.getKey());
+        }
+        return header.append('\n').toString();
+    }
+
+    /**
+     * Quote a text value when it contains a separator, quote or line break
+     */
+    private static String csvValue(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // CSV lines of one device; text is null for the end marker, error is set when the device failed
+    private record Chunk(String deviceId, String text, int rows, Exception error) {
+    }
+
+    private static class ExportState {
+        private volatile boolean cancelled;
+    }
+
+    private static class ExportCancelledException extends RuntimeException {
+    }
+}
@@ -1,32 +1,84 @@
 package com.generator.monitoring.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.generator.monitoring.dto.ColumnarHistory;
+import com.generator.monitoring.dto.HistoryColumn;
 import com.generator.monitoring.dto.HistoryDataPoint;
+import com.generator.monitoring.dto.HistoryPage;
+import com.generator.monitoring.dto.ParameterSummary;
 import com.generator.monitoring.entity.Device;
-import com.generator.monitoring.entity.TelemetryHistory;
+import com.generator.monitoring.enums.AggregateFunction;
+import com.generator.monitoring.enums.RollupResolution;
+import com.generator.monitoring.enums.TelemetryParameter;
+import com.generator.monitoring.exception.DeviceNotFoundException;
+import com.generator.monitoring.exception.InvalidInputException;
 import com.generator.monitoring.repository.DeviceRepository;
-import com.generator.monitoring.repository.TelemetryHistoryRepository;
+import com.generator.monitoring.repository.TelemetryHistoryJdbcRepository;
+import com.generator.monitoring.repository.TelemetryHistoryJdbcRepository.HistoryRowHandler;
+import com.generator.monitoring.repository.TelemetryRollupJdbcRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class HistoryService {
 
     private static final Logger logger = LoggerFactory.getLogger(HistoryService.class);
 
+    private static final long MIN_BUCKET_SECONDS = 10;
+    private static final long MAX_BUCKET_SECONDS = 86400;
+    private static final long MAX_BUCKETS = 10000;
+
+    // Bucket sizes picked automatically; from one minute up they line up with the rollup tables
+    private static final long[] STANDARD_BUCKET_SECONDS = {
+            10, 15, 30, 60, 120, 300, 600, 900, 1800, 3600, 7200, 10800, 21600, 43200, 86400
+    };
+
+    // Gaps between samples longer than this are not counted as time outside the thresholds
+    private static final long SUMMARY_MAX_GAP_SECONDS = 60;
+
+    // Summaries of longer ranges are read from the rollup tables, finest table within the bucket budget
+    private static final long SUMMARY_MAX_RAW_SECONDS = 86400;
+    private static final long SUMMARY_MAX_ROLLUP_BUCKETS = 1500;
+
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 5000;
+
+    private static final List<String> ALL_PARAMETER_NAMES = Arrays.stream(TelemetryParameter.values())
+            .map(TelemetryParameter::getKey)
+            .toList();
+
+    @Autowired
+    private TelemetryHistoryJdbcRepository telemetryHistoryJdbcRepository;
+
+    @Autowired
+    private TelemetryRollupJdbcRepository telemetryRollupJdbcRepository;
+
     @Autowired
-    private TelemetryHistoryRepository telemetryHistoryRepository;
+    private TelemetryRollupService telemetryRollupService;
 
     @Autowired
     private DeviceRepository deviceRepository;
 
+    @Autowired
+    private ThresholdService thresholdService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Query historical data for a device within a time range
      * Optionally filter by specific parameters
@@ -40,194 +92,475 @@ public class HistoryService {
 
         logger.info("Device found: {}, id: {}", device.getName(), device.getId());
 
-        List<TelemetryHistory> historyRecords = telemetryHistoryRepository
-                .findByDeviceAndTimeRange(device, startTime, endTime);
+        // Resolve the requested parameters once, not per row
+        TelemetryParameter[] selected = resolveParameters(parameters);
+
+        List<HistoryDataPoint> dataPoints = new ArrayList<>();
+        telemetryHistoryJdbcRepository.forEachRow(device.getId(), startTime, endTime, selected,
+                (timestamp, values) -> dataPoints.add(toDataPoint(timestamp, selected, values)));
 
-        logger.info("Found {} history records for device: {}", historyRecords.size(), deviceId);
+        logger.info("Found {} history records for device: {}", dataPoints.size(), deviceId);
 
-        if (historyRecords.isEmpty()) {
+        if (dataPoints.isEmpty()) {
             logger.warn("No history records found for device: {} in time range {} to {}",
                     deviceId, startTime, endTime);
         }
 
-        return historyRecords.stream()
-                .map(record -> convertToDataPoint(record, parameters))
-                .collect(Collectors.toList());
+        return dataPoints;
     }
 
     /**
-     * Convert TelemetryHistory to HistoryDataPoint with selected parameters
+     * Query historical data in column form, newest first.
+     * Rows are written straight into the column arrays without building a map per row.
      */
-    private HistoryDataPoint convertToDataPoint(TelemetryHistory record, List<String> parameters) {
-        Map<String, Object> parameterMap = new HashMap<>();
+    public ColumnarHistory queryHistoryColumnar(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                                List<String> parameters, boolean delta) {
+        TelemetryParameter[] selected = resolveParameters(parameters);
+
+        long[][] timestamps = {new long[1024]};
+        HistoryColumn[] columns = new HistoryColumn[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            columns[i] = HistoryColumn.forValueType(selected[i].getValueType());
+        }
+        int[] rowCount = {0};
 
-        // If no specific parameters requested, return all
-        if (parameters == null || parameters.isEmpty()) {
-            parameters = getAllParameterNames();
+        forEachHistoryRow(deviceId, startTime, endTime, selected, (timestamp, values) -> {
+            if (rowCount[0] == timestamps[0].length) {
+                timestamps[0] = Arrays.copyOf(timestamps[0], rowCount[0] * 2);
+            }
+            timestamps[0][rowCount[0]++] = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+            for (int i = 0; i < selected.length; i++) {
+                columns[i].add(values[i]);
+            }
+        });
+
+        Map<String, HistoryColumn> columnMap = new LinkedHashMap<>();
+        for (int i = 0; i < selected.length; i++) {
+            columnMap.put(selected[i].getKey(), columns[i]);
+        }
+
+        logger.info("Found {} history records for device: {} (columnar)", rowCount[0], deviceId);
+        return buildColumnar(Arrays.copyOf(timestamps[0], rowCount[0]), columnMap, delta);
+    }
+
+    /**
+     * Convert data points to column form, with one column per requested parameter
+     * (or per parameter present in the points when none are given)
+     */
+    public ColumnarHistory toColumnar(List<HistoryDataPoint> dataPoints, List<String> parameters, boolean delta) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (parameters != null && !parameters.isEmpty()) {
+            keys.addAll(parameters);
+        } else {
+            dataPoints.forEach(point -> keys.addAll(point.getParameters().keySet()));
         }
 
-        for (String paramName : parameters) {
-            Object value = getParameterValue(record, paramName);
+        long[] timestamps = new long[dataPoints.size()];
+        Map<String, HistoryColumn> columnMap = new LinkedHashMap<>();
+        for (String key : keys) {
+            columnMap.put(key, columnFor(dataPoints, key));
+        }
+
+        for (int row = 0; row < dataPoints.size(); row++) {
+            HistoryDataPoint point = dataPoints.get(row);
+            timestamps[row] = point.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+            for (Map.Entry<String, HistoryColumn> column : columnMap.entrySet()) {
+                column.getValue().add(point.getParameters().get(column.getKey()));
+            }
+        }
+
+        return buildColumnar(timestamps, columnMap, delta);
+    }
+
+    /**
+     * Primitive column matching the first value of the key: long for counts, double for other aggregates
+     */
+    private static HistoryColumn columnFor(List<HistoryDataPoint> dataPoints, String key) {
+        for (HistoryDataPoint point : dataPoints) {
+            Object value = point.getParameters().get(key);
+            if (value instanceof Long || value instanceof Integer) {
+                return HistoryColumn.ofLongs(dataPoints.size());
+            }
+            if (value instanceof Number) {
+                return HistoryColumn.ofDoubles(dataPoints.size());
+            }
             if (value != null) {
-                parameterMap.put(paramName, value);
+                return HistoryColumn.ofObjects(dataPoints.size());
+            }
+        }
+        return HistoryColumn.ofDoubles(dataPoints.size());
+    }
+
+    private static ColumnarHistory buildColumnar(long[] timestamps, Map<String, HistoryColumn> columns,
+                                                 boolean delta) {
+        if (delta) {
+            // Walk backwards so every difference is taken against the original value
+            for (int i = timestamps.length - 1; i > 0; i--) {
+                timestamps[i] -= timestamps[i - 1];
             }
         }
+        return new ColumnarHistory(timestamps.length, delta, timestamps, columns);
+    }
+
+    /**
+     * Get one page of historical data, newest first.
+     * The cursor is the nextCursor of the previous page, or null for the first page.
+     */
+    public HistoryPage queryHistoryPage(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                        List<String> parameters, String cursor, Integer limit) {
+        if (startTime == null || endTime == null || startTime.isAfter(endTime)) {
+            throw new InvalidInputException("A start time before the end time is required");
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new InvalidInputException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
 
-        return new HistoryDataPoint(record.getTimestamp(), parameterMap);
+        Device device = deviceRepository.findByDeviceId(deviceId)
+                .orElseThrow(() -> new DeviceNotFoundException("Device not found: " + deviceId));
+
+        LocalDateTime afterTimestamp = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterTimestamp = LocalDateTime.parse(position[0]);
+            afterId = Long.parseLong(position[1]);
+        }
+
+        TelemetryParameter[] selected = resolveParameters(parameters);
+        List<HistoryDataPoint> dataPoints = new ArrayList<>(pageSize);
+        long[] lastId = {0};
+
+        // One extra row tells whether another page follows
+        int rowCount = telemetryHistoryJdbcRepository.forEachRowInPage(device.getId(), startTime, endTime, selected,
+                afterTimestamp, afterId, pageSize + 1, (id, timestamp, values) -> {
+                    if (dataPoints.size() < pageSize) {
+                        dataPoints.add(toDataPoint(timestamp, selected, values));
+                        lastId[0] = id;
+                    }
+                });
+
+        boolean hasMore = rowCount > pageSize;
+        String nextCursor = hasMore
+                ? encodeCursor(dataPoints.get(dataPoints.size() - 1).getTimestamp(), lastId[0])
+                : null;
+        return new HistoryPage(dataPoints, nextCursor, hasMore);
+    }
+
+    private static String encodeCursor(LocalDateTime timestamp, long id) {
+        String position = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
-     * Get all available parameter names
+     * Split a cursor into its timestamp and id, rejecting anything that was not produced by encodeCursor
      */
-    public List<String> getAllParameterNames() {
-        return Arrays.asList(
-            "rpm",
-            "generatorPL1", "generatorPL2", "generatorPL3",
-            "generatorQ", "generatorQL1", "generatorQL2", "generatorQL3",
-            "generatorS", "generatorSL1", "generatorSL2", "generatorSL3",
-            "generatorPowerFactor", "generatorFrequency",
-            "generatorVoltageL1N", "generatorVoltageL2N", "generatorVoltageL3N",
-            "generatorVoltageL1L2", "generatorVoltageL2L3", "generatorVoltageL3L1",
-            "generatorCurrentL1", "generatorCurrentL2", "generatorCurrentL3",
-            "earthFaultCurrent", "mainsBusFrequency",
-            "mainsBusVoltageL1N", "mainsBusVoltageL2N", "mainsBusVoltageL3N",
-            "mainsBusVoltageL1L2", "mainsBusVoltageL2L3", "mainsBusVoltageL3L1",
-            "mainsL1Current", "mainsImportP", "mainsImportQ", "mainsPF",
-            "maxVectorShift", "rocof", "maxRocof",
-            "loadP", "loadQ", "loadPF",
-            "batteryVolts", "dPlus",
-            "oilPressure", "oilTemperature", "fuelLevel",
-            "eStop", "alarm"
-        );
-    }
-
-    /**
-     * Get parameter value from TelemetryHistory using reflection
-     */
-    private Object getParameterValue(TelemetryHistory record, String paramName) {
+    private static String[] decodeCursor(String cursor) {
         try {
-            Field field = TelemetryHistory.class.getDeclaredField(paramName);
-            field.setAccessible(true);
-            return field.get(record);
-        } catch (Exception e) {
-            return null;
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|");
+            if (parts.length != 2) {
+                throw new InvalidInputException("Invalid cursor: " + cursor);
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidInputException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Check a history query before a streamed response is started, so that errors
+     * can still be reported with a proper status code
+     */
+    public void validateQuery(String deviceId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null || endTime == null || startTime.isAfter(endTime)) {
+            throw new InvalidInputException("A start time before the end time is required");
+        }
+        if (deviceRepository.findByDeviceId(deviceId).isEmpty()) {
+            throw new DeviceNotFoundException("Device not found: " + deviceId);
         }
     }
 
+    /**
+     * Write historical data to the output as it is read from the database, newest first.
+     * With ndjson each data point is written as one JSON line, otherwise as a JSON array.
+     * Returns the number of written data points.
+     */
+    public long streamHistory(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                              List<String> parameters, boolean ndjson, OutputStream out) throws IOException {
+        TelemetryParameter[] selected = resolveParameters(parameters);
+        long[] count = {0};
+
+        ObjectWriter writer = objectMapper.writerFor(HistoryDataPoint.class);
+        try (SequenceWriter sequence = ndjson
+                ? writer.withRootValueSeparator("\n").writeValues(out)
+                : writer.writeValuesAsArray(out)) {
+            forEachHistoryRow(deviceId, startTime, endTime, selected, (timestamp, values) -> {
+                try {
+                    sequence.write(toDataPoint(timestamp, selected, values));
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (ndjson && count[0] > 0) {
+                // The separator only goes between values; end the last line as well
+                sequence.flush();
+                out.write('\n');
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        logger.info("Streamed {} history records for device: {}", count[0], deviceId);
+        return count[0];
+    }
+
+    /**
+     * Read only the given parameters of a device within a time range, newest first,
+     * handing each row to the handler as it is read
+     */
+    public void forEachHistoryRow(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                  TelemetryParameter[] parameters, HistoryRowHandler handler) {
+        Device device = deviceRepository.findByDeviceId(deviceId)
+                .orElseThrow(() -> new RuntimeException("Device not found: " + deviceId));
+        telemetryHistoryJdbcRepository.forEachRow(device.getId(), startTime, endTime, parameters, handler);
+    }
+
+    /**
+     * Requested parameters in order, or all parameters when none are given; unknown names are skipped
+     */
+    public TelemetryParameter[] resolveParameters(List<String> parameters) {
+        return parameters == null || parameters.isEmpty()
+                ? TelemetryParameter.values()
+                : TelemetryParameter.resolve(parameters);
+    }
+
+    /**
+     * Convert a projected row to a HistoryDataPoint, leaving out missing values
+     */
+    private HistoryDataPoint toDataPoint(LocalDateTime timestamp, TelemetryParameter[] parameters, Object[] values) {
+        // Sized so the map never rehashes
+        Map<String, Object> parameterMap = new HashMap<>(parameters.length * 4 / 3 + 1);
+
+        for (int i = 0; i < parameters.length; i++) {
+            if (values[i] != null) {
+                parameterMap.put(parameters[i].getKey(), values[i]);
+            }
+        }
+
+        return new HistoryDataPoint(timestamp, parameterMap);
+    }
+
+    /**
+     * Get all available parameter names
+     */
+    public List<String> getAllParameterNames() {
+        return ALL_PARAMETER_NAMES;
+    }
+
     /**
      * Get parameter display names with units
      */
     public Map<String, String> getParameterDisplayNames() {
         Map<String, String> displayNames = new LinkedHashMap<>();
-        displayNames.put("rpm", "RPM");
-        displayNames.put("generatorPL1", "Generator P L1 (kW)");
-        displayNames.put("generatorPL2", "Generator P L2 (kW)");
-        displayNames.put("generatorPL3", "Generator P L3 (kW)");
-        displayNames.put("generatorQ", "Generator Q (kVAR)");
-        displayNames.put("generatorQL1", "Generator Q L1 (kVAR)");
-        displayNames.put("generatorQL2", "Generator Q L2 (kVAR)");
-        displayNames.put("generatorQL3", "Generator Q L3 (kVAR)");
-        displayNames.put("generatorS", "Generator S (kVA)");
-        displayNames.put("generatorSL1", "Generator S L1 (kVA)");
-        displayNames.put("generatorSL2", "Generator S L2 (kVA)");
-        displayNames.put("generatorSL3", "Generator S L3 (kVA)");
-        displayNames.put("generatorPowerFactor", "Generator Power Factor");
-        displayNames.put("generatorFrequency", "Generator Frequency (Hz)");
-        displayNames.put("generatorVoltageL1N", "Generator Voltage L1-N (V)");
-        displayNames.put("generatorVoltageL2N", "Generator Voltage L2-N (V)");
-        displayNames.put("generatorVoltageL3N", "Generator Voltage L3-N (V)");
-        displayNames.put("generatorVoltageL1L2", "Generator Voltage L1-L2 (V)");
-        displayNames.put("generatorVoltageL2L3", "Generator Voltage L2-L3 (V)");
-        displayNames.put("generatorVoltageL3L1", "Generator Voltage L3-L1 (V)");
-        displayNames.put("generatorCurrentL1", "Generator Current L1 (A)");
-        displayNames.put("generatorCurrentL2", "Generator Current L2 (A)");
-        displayNames.put("generatorCurrentL3", "Generator Current L3 (A)");
-        displayNames.put("earthFaultCurrent", "Earth Fault Current (mA)");
-        displayNames.put("mainsBusFrequency", "Mains/Bus Frequency (Hz)");
-        displayNames.put("mainsBusVoltageL1N", "Mains/Bus Voltage L1-N (V)");
-        displayNames.put("mainsBusVoltageL2N", "Mains/Bus Voltage L2-N (V)");
-        displayNames.put("mainsBusVoltageL3N", "Mains/Bus Voltage L3-N (V)");
-        displayNames.put("mainsBusVoltageL1L2", "Mains/Bus Voltage L1-L2 (V)");
-        displayNames.put("mainsBusVoltageL2L3", "Mains/Bus Voltage L2-L3 (V)");
-        displayNames.put("mainsBusVoltageL3L1", "Mains/Bus Voltage L3-L1 (V)");
-        displayNames.put("mainsL1Current", "Mains L1 Current (A)");
-        displayNames.put("mainsImportP", "Mains Import P (kW)");
-        displayNames.put("mainsImportQ", "Mains Import Q (kVAR)");
-        displayNames.put("mainsPF", "Mains Power Factor");
-        displayNames.put("maxVectorShift", "Max Vector Shift (°)");
-        displayNames.put("rocof", "ROCOF (Hz/s)");
-        displayNames.put("maxRocof", "Max ROCOF (Hz/s)");
-        displayNames.put("loadP", "Load P (kW)");
-        displayNames.put("loadQ", "Load Q (kVAR)");
-        displayNames.put("loadPF", "Load Power Factor");
-        displayNames.put("batteryVolts", "Battery Voltage (V)");
-        displayNames.put("dPlus", "D+ Voltage (V)");
-        displayNames.put("oilPressure", "Oil Pressure (bar)");
-        displayNames.put("oilTemperature", "Oil Temperature (°C)");
-        displayNames.put("fuelLevel", "Fuel Level (%)");
-        displayNames.put("eStop", "E-STOP");
-        displayNames.put("alarm", "Alarm");
+        for (TelemetryParameter parameter : TelemetryParameter.values()) {
+            displayNames.put(parameter.getKey(), parameter.getDisplayName());
+        }
         return displayNames;
     }
 
     /**
-     * Get averaged RPM data per minute for RPM chart
-     * Returns max 1440 data points (one per minute for 24 hours)
-     * Each data point contains: timestamp and average RPM for that minute
+     * Aggregate parameters into fixed-size time buckets, computed in the database.
+     * When no parameters are given all numeric parameters are aggregated.
      */
-    public List<Map<String, Object>> getAveragedRpmData(String deviceId, LocalDateTime startTime, LocalDateTime endTime) {
-        logger.info("Getting averaged RPM data for device: {}, startTime: {}, endTime: {}", deviceId, startTime, endTime);
+    public List<HistoryDataPoint> aggregateHistory(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                                   List<String> parameters, long bucketSeconds,
+                                                   AggregateFunction function) {
+        if (startTime == null || endTime == null || startTime.isAfter(endTime)) {
+            throw new InvalidInputException("A start time before the end time is required");
+        }
+        if (bucketSeconds < MIN_BUCKET_SECONDS || bucketSeconds > MAX_BUCKET_SECONDS) {
+            throw new InvalidInputException("Bucket size must be between 10 seconds and 1 day");
+        }
+
+        long bucketCount = Duration.between(startTime, endTime).getSeconds() / bucketSeconds + 1;
+        if (bucketCount > MAX_BUCKETS) {
+            throw new InvalidInputException("Time range needs " + bucketCount + " buckets, at most "
+                    + MAX_BUCKETS + " are allowed. Use a larger bucket size.");
+        }
 
         Device device = deviceRepository.findByDeviceId(deviceId)
-                .orElseThrow(() -> new RuntimeException("Device not found: " + deviceId));
+                .orElseThrow(() -> new DeviceNotFoundException("Device not found: " + deviceId));
+
+        List<TelemetryParameter> selected = resolveNumericParameters(parameters);
+
+        // Read the coarsest rollup table the bucket size allows, raw telemetry otherwise
+        RollupResolution resolution = telemetryRollupService.selectResolution(bucketSeconds, startTime);
+        List<HistoryDataPoint> points;
+        if (resolution != null) {
+            LocalDateTime alignedStart = LocalDateTime.ofEpochSecond(
+                    Math.floorDiv(startTime.toEpochSecond(ZoneOffset.UTC), resolution.getSeconds())
+                            * resolution.getSeconds(), 0, ZoneOffset.UTC);
+            points = telemetryRollupJdbcRepository.aggregate(
+                    resolution, device.getId(), alignedStart, endTime, selected, bucketSeconds, function);
+        } else {
+            points = telemetryHistoryJdbcRepository.aggregate(
+                    device.getId(), startTime, endTime, selected, bucketSeconds, function);
+        }
 
-        // Get all telemetry records for the time range
-        List<TelemetryHistory> historyRecords = telemetryHistoryRepository
-                .findByDeviceAndTimeRange(device, startTime, endTime);
+        logger.info("Aggregated {} parameters of device {} into {} buckets of {}s ({}) from {}",
+                selected.size(), deviceId, points.size(), bucketSeconds, function,
+                resolution != null ? resolution.getTable() : "telemetry_history");
+        return points;
+    }
 
-        logger.info("Found {} raw telemetry records for device: {}", historyRecords.size(), deviceId);
+    /**
+     * Statistics of each numeric parameter over a time range, including the time spent
+     * outside the device thresholds. When no parameters are given all numeric parameters are summarised.
+     * Ranges up to a day are computed exactly from raw telemetry. Longer ranges are read from the
+     * rollup tables with approximate percentiles, or from raw telemetry without percentiles when
+     * the rollups do not reach back far enough.
+     */
+    public List<ParameterSummary> summarizeHistory(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                                   List<String> parameters) {
+        if (startTime == null || endTime == null || startTime.isAfter(endTime)) {
+            throw new InvalidInputException("A start time before the end time is required");
+        }
 
-        if (historyRecords.isEmpty()) {
-            logger.warn("No telemetry records found for device: {} in time range {} to {}",
-                    deviceId, startTime, endTime);
-            return new ArrayList<>();
+        Device device = deviceRepository.findByDeviceId(deviceId)
+                .orElseThrow(() -> new DeviceNotFoundException("Device not found: " + deviceId));
+
+        List<TelemetryParameter> selected = resolveNumericParameters(parameters);
+        Map<TelemetryParameter, double[]> limits = thresholdService.getParameterLimits(device);
+        double[] minLimits = new double[selected.size()];
+        double[] maxLimits = new double[selected.size()];
+        for (int i = 0; i < selected.size(); i++) {
+            double[] limit = limits.get(selected.get(i));
+            minLimits[i] = limit != null ? limit[0] : Double.NaN;
+            maxLimits[i] = limit != null ? limit[1] : Double.NaN;
         }
 
-        // Group records by minute and calculate average RPM for each minute
-        Map<LocalDateTime, List<Double>> rpmByMinute = new TreeMap<>();
+        long rangeSeconds = Duration.between(startTime, endTime).getSeconds();
+        if (rangeSeconds <= SUMMARY_MAX_RAW_SECONDS) {
+            return telemetryHistoryJdbcRepository.summarize(device.getId(), startTime, endTime, selected,
+                    minLimits, maxLimits, SUMMARY_MAX_GAP_SECONDS, true);
+        }
 
-        for (TelemetryHistory record : historyRecords) {
-            // Skip records without RPM data
-            if (record.getRpm() == null) {
-                continue;
+        RollupResolution resolution = selectSummaryResolution(rangeSeconds, startTime);
+        if (resolution == null) {
+            logger.info("Summarising {} days of device {} from raw telemetry without percentiles",
+                    rangeSeconds / 86400, deviceId);
+            return telemetryHistoryJdbcRepository.summarize(device.getId(), startTime, endTime, selected,
+                    minLimits, maxLimits, SUMMARY_MAX_GAP_SECONDS, false);
+        }
+
+        LocalDateTime alignedStart = LocalDateTime.ofEpochSecond(
+                Math.floorDiv(startTime.toEpochSecond(ZoneOffset.UTC), resolution.getSeconds())
+                        * resolution.getSeconds(), 0, ZoneOffset.UTC);
+        return telemetryRollupJdbcRepository.summarize(resolution, device.getId(), alignedStart, endTime, selected,
+                minLimits, maxLimits);
+    }
+
+    /**
+     * Finest rollup table that covers the range within the bucket budget, else the coarsest one covering it
+     */
+    private RollupResolution selectSummaryResolution(long rangeSeconds, LocalDateTime startTime) {
+        for (RollupResolution resolution : RollupResolution.values()) {
+            if (rangeSeconds / resolution.getSeconds() <= SUMMARY_MAX_ROLLUP_BUCKETS
+                    && telemetryRollupService.selectResolution(resolution.getSeconds(), startTime) == resolution) {
+                return resolution;
             }
+        }
+        return telemetryRollupService.selectResolution(RollupResolution.ONE_HOUR.getSeconds(), startTime);
+    }
 
-            // Truncate timestamp to minute (e.g., 2024-01-15 14:35:23 -> 2024-01-15 14:35:00)
-            LocalDateTime minuteTimestamp = record.getTimestamp().truncatedTo(ChronoUnit.MINUTES);
+    /**
+     * Smallest standard bucket size that keeps the range within the point budget
+     */
+    public static long chooseBucketSeconds(LocalDateTime startTime, LocalDateTime endTime, int maxPoints) {
+        if (startTime == null || endTime == null || maxPoints < 1) {
+            throw new InvalidInputException("A time range and a positive point budget are required");
+        }
 
-            // Add RPM value to the corresponding minute bucket
-            rpmByMinute.computeIfAbsent(minuteTimestamp, k -> new ArrayList<>()).add(record.getRpm());
+        long rangeSeconds = Math.max(1, Duration.between(startTime, endTime).getSeconds());
+        long minimum = (rangeSeconds + maxPoints - 1) / maxPoints;
+        for (long size : STANDARD_BUCKET_SECONDS) {
+            if (size >= minimum) {
+                return size;
+            }
         }
+        return MAX_BUCKET_SECONDS;
+    }
 
-        logger.info("Grouped data into {} minute buckets", rpmByMinute.size());
+    /**
+     * Parse a bucket size such as "10s", "15m", "1h", "1d" or a plain number of seconds
+     */
+    public static long parseBucketSeconds(String bucket) {
+        if (bucket == null || bucket.isBlank()) {
+            throw new InvalidInputException("Bucket size is required");
+        }
 
-        // Calculate average RPM for each minute and prepare result
-        List<Map<String, Object>> result = new ArrayList<>();
+        String value = bucket.trim().toLowerCase();
+        char unit = value.charAt(value.length() - 1);
+        long multiplier = switch (unit) {
+            case 's' -> 1;
+            case 'm' -> 60;
+            case 'h' -> 3600;
+            case 'd' -> 86400;
+            default -> 0;
+        };
 
-        for (Map.Entry<LocalDateTime, List<Double>> entry : rpmByMinute.entrySet()) {
-            LocalDateTime minuteTimestamp = entry.getKey();
-            List<Double> rpmValues = entry.getValue();
+        try {
+            return multiplier == 0
+                    ? Long.parseLong(value)
+                    : Long.parseLong(value.substring(0, value.length() - 1)) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("Invalid bucket size: " + bucket);
+        }
+    }
 
-            // Calculate average RPM for this minute
-            double averageRpm = rpmValues.stream()
-                    .mapToDouble(Double::doubleValue)
-                    .average()
-                    .orElse(0.0);
+    private List<TelemetryParameter> resolveNumericParameters(List<String> parameters) {
+        if (parameters == null || parameters.isEmpty()) {
+            return TelemetryParameter.numericValues();
+        }
 
-            Map<String, Object> dataPoint = new HashMap<>();
-            dataPoint.put("timestamp", minuteTimestamp.toString());
-            dataPoint.put("rpm", Math.round(averageRpm * 100.0) / 100.0); // Round to 2 decimal places
+        List<TelemetryParameter> selected = new ArrayList<>(parameters.size());
+        for (String name : parameters) {
+            TelemetryParameter parameter = TelemetryParameter.fromKey(name);
+            if (parameter == null || !parameter.isNumeric()) {
+                throw new InvalidInputException("Parameter cannot be aggregated: " + name);
+            }
+            selected.add(parameter);
+        }
+        return selected;
+    }
+
+    /**
+     * Get averaged RPM data per minute for RPM chart
+     * Returns max 1440 data points (one per minute for 24 hours)
+     * Each data point contains: timestamp and average RPM for that minute
+     */
+    public List<Map<String, Object>> getAveragedRpmData(String deviceId, LocalDateTime startTime, LocalDateTime endTime) {
+        logger.info("Getting averaged RPM data for device: {}, startTime: {}, endTime: {}", deviceId, startTime, endTime);
+
+        List<HistoryDataPoint> buckets = aggregateHistory(deviceId, startTime, endTime,
+                List.of(TelemetryParameter.RPM.getKey()), 60, AggregateFunction.AVG);
+
+        List<Map<String, Object>> result = new ArrayList<>(buckets.size());
+        for (HistoryDataPoint bucket : buckets) {
+            Object averageRpm = bucket.getParameters().get(TelemetryParameter.RPM.getKey());
 
+            // Skip minutes without RPM data
+            if (averageRpm == null) {
+                continue;
+            }
+
+            Map<String, Object> dataPoint = new HashMap<>();
+            dataPoint.put("timestamp", bucket.getTimestamp().toString());
+            dataPoint.put("rpm", Math.round((Double) averageRpm * 100.0) / 100.0); // Round to 2 decimal places
             result.add(dataPoint);
         }
 
@@ -0,0 +1,96 @@
+package com.generator.monitoring.service;
+
+import com.generator.monitoring.entity.Device;
+import com.generator.monitoring.repository.DeviceJdbcRepository;
+import com.generator.monitoring.util.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks device heartbeats in memory and writes them to the devices table in bulk.
+ * Instead of one UPDATE per telemetry message, all devices seen since the last flush
+ * are written with a single statement on a fixed interval.
+ */
+@Service
+public class LastSeenTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastSeenTracker.class);
+
+    @Autowired
+    private DeviceJdbcRepository deviceJdbcRepository;
+
+    // Latest heartbeat per device primary key
+    private final Map<Long, LocalDateTime> lastSeen = new ConcurrentHashMap<>();
+
+    // Heartbeats not yet written to the database
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void record(Device device, LocalDateTime seenAt) {
+        lastSeen.merge(device.getId(), seenAt, LastSeenTracker::latest);
+        pending.merge(device.getId(), seenAt, LastSeenTracker::latest);
+    }
+
+    /**
+     * Live last seen value, falling back to the persisted one for devices
+     * that have not reported since startup
+     */
+    public LocalDateTime getLastSeen(Device device) {
+        LocalDateTime live = device.getId() != null ? lastSeen.get(device.getId()) : null;
+        if (live == null) {
+            return device.getLastSeenAt();
+        }
+        return device.getLastSeenAt() == null ? live : latest(live, device.getLastSeenAt());
+    }
+
+    /**
+     * Forget a deleted device once the current transaction commits
+     */
+    public void remove(Device device) {
+        Long devicePk = device.getId();
+        TransactionUtils.afterCommit(() -> {
+            lastSeen.remove(devicePk);
+            pending.remove(devicePk);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${devices.last-seen.flush-interval-ms:30000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Take a snapshot; entries updated concurrently stay pending for the next flush
+        Map<Long, LocalDateTime> batch = new HashMap<>();
+        for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        try {
+            int updated = deviceJdbcRepository.updateLastSeenAt(batch);
+            logger.debug("Flushed last seen timestamps for {} devices ({} rows updated)", batch.size(), updated);
+        } catch (Exception e) {
+            logger.error("Error flushing last seen timestamps: {}", e.getMessage(), e);
+            batch.forEach((id, seenAt) -> pending.merge(id, seenAt, LastSeenTracker::latest));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,89 @@
+package com.generator.monitoring.service;
+
+import com.generator.monitoring.dto.TelemetryData;
+import com.generator.monitoring.dto.TelemetrySnapshot;
+import com.generator.monitoring.entity.Device;
+import com.generator.monitoring.entity.TelemetryHistory;
+import com.generator.monitoring.enums.TelemetryParameter;
+import com.generator.monitoring.exception.DeviceNotFoundException;
+import com.generator.monitoring.repository.TelemetryHistoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Latest telemetry values per device, updated in memory on ingest.
+ * Dashboards and predictions read the current state with a map lookup instead of querying history.
+ * A device that has not reported since startup is loaded once from its newest history row.
+ */
+@Service
+public class LatestTelemetryCache {
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private TelemetryHistoryRepository telemetryHistoryRepository;
+
+    // Latest snapshot per device ID
+    private final Map<String, TelemetrySnapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Record a live telemetry message; an older message arriving late does not replace a newer one
+     */
+    public void record(String deviceId, TelemetryData telemetry) {
+        TelemetrySnapshot snapshot = toSnapshot(deviceId, telemetry.getTimestamp(),
+                parameter -> parameter.getValue(telemetry));
+        snapshots.merge(deviceId, snapshot, LatestTelemetryCache::latest);
+    }
+
+    /**
+     * Latest snapshot of a device, null when the device has never reported
+     */
+    public TelemetrySnapshot get(String deviceId) {
+        TelemetrySnapshot snapshot = snapshots.get(deviceId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        Device device = deviceRegistry.get(deviceId);
+        if (device == null) {
+            throw new DeviceNotFoundException("Device not found: " + deviceId);
+        }
+
+        TelemetryHistory row = telemetryHistoryRepository.findFirstByDeviceOrderByTimestampDesc(device).orElse(null);
+        if (row == null) {
+            return null;
+        }
+        return snapshots.merge(deviceId, toSnapshot(deviceId, row.getTimestamp(), parameter -> parameter.getValue(row)),
+                LatestTelemetryCache::latest);
+    }
+
+    public void remove(String deviceId) {
+        snapshots.remove(deviceId);
+    }
+
+    private static TelemetrySnapshot toSnapshot(String deviceId, LocalDateTime timestamp,
+                                                Function<TelemetryParameter, Object> values) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        for (TelemetryParameter parameter : TelemetryParameter.values()) {
+            Object value = values.apply(parameter);
+            if (value != null) {
+                parameters.put(parameter.getKey(), value);
+            }
+        }
+        return new TelemetrySnapshot(deviceId, timestamp, parameters);
+    }
+
+    private static TelemetrySnapshot latest(TelemetrySnapshot current, TelemetrySnapshot candidate) {
+        if (current.getTimestamp() == null || candidate.getTimestamp() == null) {
+            return candidate;
+        }
+        return candidate.getTimestamp().isBefore(current.getTimestamp()) ? current : candidate;
+    }
+}
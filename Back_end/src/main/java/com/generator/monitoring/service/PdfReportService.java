@@ -1,12 +1,22 @@
 package com.generator.monitoring.service;
 
 import com.generator.monitoring.dto.HistoryDataPoint;
+import com.generator.monitoring.dto.ParameterSummary;
+import com.generator.monitoring.enums.AggregateFunction;
+import com.generator.monitoring.enums.TelemetryParameter;
+import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Image;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.TextAlignment;
@@ -16,11 +26,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.function.DoubleConsumer;
 
 @Service
 public class PdfReportService {
@@ -28,17 +42,37 @@ public class PdfReportService {
     private static final Logger logger = LoggerFactory.getLogger(PdfReportService.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    // Rows buffered in the large table before they are laid out and written
+    private static final int FLUSH_ROWS = 200;
+
+    // Target number of points per chart in summary reports
+    private static final int CHART_POINTS = 300;
+    private static final float CHART_HEIGHT = 110;
+
     @Autowired
     private HistoryService historyService;
 
     /**
-     * Generate PDF report for historical data
+     * Write a PDF report for historical data to the output as it is rendered.
+     * Rows are read through a database cursor into an iText large table that is flushed
+     * every FLUSH_ROWS rows, so finished pages go to the output and memory use does not
+     * grow with the number of rows. The output is not closed.
+     */
+    public void writeReport(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                            List<String> parameters, OutputStream out) {
+        writeReport(deviceId, startTime, endTime, parameters, out, progress -> {
+        });
+    }
+
+    /**
+     * Write a PDF report, reporting progress as a fraction between 0 and 1 on every table flush.
+     * Rows are read newest first, so progress is how far the rows have reached back from the end time.
      */
-    public byte[] generateReport(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
-                                  List<String> parameters) {
+    public void writeReport(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                            List<String> parameters, OutputStream out, DoubleConsumer progress) {
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PdfWriter writer = new PdfWriter(baos);
+            PdfWriter writer = new PdfWriter(out);
+            writer.setCloseStream(false);
             PdfDocument pdf = new PdfDocument(writer);
 
             // Use landscape orientation for better column visibility
@@ -62,70 +96,85 @@ public class PdfReportService {
                     " to " + endTime.format(DATE_FORMATTER)).setFontSize(9));
             document.add(new Paragraph("\n").setFontSize(6));
 
-            // Get parameter display names
-            Map<String, String> displayNames = historyService.getParameterDisplayNames();
+            // Resolve columns once; only known parameters are queried, unknown names stay as empty columns
+            String[] headers = new String[parameters.size()];
+            int[] valueIndex = new int[parameters.size()];
+            List<TelemetryParameter> selected = new ArrayList<>();
+            for (int i = 0; i < headers.length; i++) {
+                TelemetryParameter parameter = TelemetryParameter.fromKey(parameters.get(i));
+                headers[i] = parameter != null ? parameter.getDisplayName() : parameters.get(i);
+                valueIndex[i] = parameter != null ? selected.size() : -1;
+                if (parameter != null) {
+                    selected.add(parameter);
+                }
+            }
 
-            // Query historical data
-            List<HistoryDataPoint> dataPoints = historyService.queryHistory(deviceId, startTime, endTime, parameters);
+            // Determine font size based on number of columns
+            int headerFontSize = columnCount > 10 ? 6 : (columnCount > 6 ? 7 : 8);
+            int cellFontSize = columnCount > 10 ? 5 : (columnCount > 6 ? 6 : 7);
 
-            if (dataPoints.isEmpty()) {
-                document.add(new Paragraph("No data available for the specified period.").setFontSize(10));
-            } else {
-                // Determine font size based on number of columns
-                int headerFontSize = columnCount > 10 ? 6 : (columnCount > 6 ? 7 : 8);
-                int cellFontSize = columnCount > 10 ? 5 : (columnCount > 6 ? 6 : 7);
+            // Create a large table with equal column widths; it is added to the document
+            // up front and its rows are laid out and released on every flush
+            Table table = new Table(UnitValue.createPercentArray(columnCount), true).useAllAvailableWidth();
+            table.setFontSize(cellFontSize);
+
+            // Add header row - Timestamp column
+            Cell headerCell = new Cell()
+                    .add(new Paragraph("Timestamp").setFontSize(headerFontSize).setBold())
+                    .setBackgroundColor(ColorConstants.LIGHT_GRAY)
+                    .setTextAlignment(TextAlignment.CENTER)
+                    .setPadding(3);
+            table.addHeaderCell(headerCell);
 
-                // Create table with equal column widths
-                Table table = new Table(UnitValue.createPercentArray(columnCount)).useAllAvailableWidth();
-                table.setFontSize(cellFontSize);
+            // Add header row - Parameter columns
+            for (String displayName : headers) {
+                // Wrap long header text
+                Paragraph headerParagraph = new Paragraph(displayName)
+                        .setFontSize(headerFontSize)
+                        .setBold();
 
-                // Add header row - Timestamp column
-                Cell headerCell = new Cell()
-                        .add(new Paragraph("Timestamp").setFontSize(headerFontSize).setBold())
+                headerCell = new Cell()
+                        .add(headerParagraph)
                         .setBackgroundColor(ColorConstants.LIGHT_GRAY)
                         .setTextAlignment(TextAlignment.CENTER)
                         .setPadding(3);
                 table.addHeaderCell(headerCell);
+            }
 
-                // Add header row - Parameter columns
-                for (String param : parameters) {
-                    String displayName = displayNames.getOrDefault(param, param);
-                    // Wrap long header text
-                    Paragraph headerParagraph = new Paragraph(displayName)
-                            .setFontSize(headerFontSize)
-                            .setBold();
-
-                    headerCell = new Cell()
-                            .add(headerParagraph)
-                            .setBackgroundColor(ColorConstants.LIGHT_GRAY)
-                            .setTextAlignment(TextAlignment.CENTER)
-                            .setPadding(3);
-                    table.addHeaderCell(headerCell);
-                }
+            document.add(table);
 
-                // Add data rows
-                for (HistoryDataPoint dataPoint : dataPoints) {
-                    // Add timestamp cell
-                    String timestamp = dataPoint.getTimestamp().format(DATE_FORMATTER);
-                    Cell timestampCell = new Cell()
-                            .add(new Paragraph(timestamp).setFontSize(cellFontSize))
-                            .setTextAlignment(TextAlignment.CENTER)
-                            .setPadding(2);
-                    table.addCell(timestampCell);
-
-                    // Add parameter value cells
-                    for (String param : parameters) {
-                        Object value = dataPoint.getParameters().get(param);
-                        String displayValue = formatValue(value);
-                        Cell valueCell = new Cell()
-                                .add(new Paragraph(displayValue).setFontSize(cellFontSize))
+            // Add data rows as they are read, fetching only the selected columns
+            long rangeSeconds = Duration.between(startTime, endTime).getSeconds();
+            long[] rowCount = {0};
+            historyService.forEachHistoryRow(deviceId, startTime, endTime,
+                    selected.toArray(new TelemetryParameter[0]), (rowTimestamp, values) -> {
+                        // Add timestamp cell
+                        String timestamp = rowTimestamp.format(DATE_FORMATTER);
+                        Cell timestampCell = new Cell()
+                                .add(new Paragraph(timestamp).setFontSize(cellFontSize))
                                 .setTextAlignment(TextAlignment.CENTER)
                                 .setPadding(2);
-                        table.addCell(valueCell);
-                    }
-                }
+                        table.addCell(timestampCell);
 
-                document.add(table);
+                        // Add parameter value cells
+                        for (int index : valueIndex) {
+                            String displayValue = formatValue(index >= 0 ? values[index] : null);
+                            Cell valueCell = new Cell()
+                                    .add(new Paragraph(displayValue).setFontSize(cellFontSize))
+                                    .setTextAlignment(TextAlignment.CENTER)
+                                    .setPadding(2);
+                            table.addCell(valueCell);
+                        }
+                        if (++rowCount[0] % FLUSH_ROWS == 0) {
+                            table.flush();
+                            progress.accept(rangeSeconds == 0 ? 0
+                                    : (double) Duration.between(rowTimestamp, endTime).getSeconds() / rangeSeconds);
+                        }
+                    });
+
+            table.complete();
+            if (rowCount[0] == 0) {
+                document.add(new Paragraph("No data available for the specified period.").setFontSize(10));
             }
 
             // Add footer
@@ -136,15 +185,218 @@ public class PdfReportService {
 
             document.close();
             logger.info("PDF report generated for device: {} with {} data points and {} columns",
-                    deviceId, dataPoints.size(), columnCount);
-
-            return baos.toByteArray();
+                    deviceId, rowCount[0], columnCount);
         } catch (Exception e) {
             logger.error("Error generating PDF report: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to generate PDF report", e);
         }
     }
 
+    /**
+     * Write a summary report: a statistics table and one downsampled chart per parameter.
+     * Everything is computed from aggregates in the database (and the rollup tables where they
+     * cover the range), so the report takes seconds and stays a few pages for any time range.
+     * Text parameters and unknown names are left out. The output is not closed.
+     */
+    public void writeSummaryReport(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                   List<String> parameters, OutputStream out) {
+        try {
+            List<String> numeric = new ArrayList<>();
+            for (String name : parameters) {
+                TelemetryParameter parameter = TelemetryParameter.fromKey(name);
+                if (parameter != null && parameter.isNumeric()) {
+                    numeric.add(parameter.getKey());
+                }
+            }
+
+            PdfWriter writer = new PdfWriter(out);
+            writer.setCloseStream(false);
+            PdfDocument pdf = new PdfDocument(writer);
+            pdf.setDefaultPageSize(PageSize.A4);
+
+            Document document = new Document(pdf);
+            document.setMargins(20, 20, 20, 20);
+
+            document.add(new Paragraph("Generator Monitoring Summary Report")
+                    .setFontSize(16)
+                    .setBold()
+                    .setTextAlignment(TextAlignment.CENTER));
+            document.add(new Paragraph("Device ID: " + deviceId).setFontSize(9));
+            document.add(new Paragraph("Report Period: " + startTime.format(DATE_FORMATTER) +
+                    " to " + endTime.format(DATE_FORMATTER)).setFontSize(9));
+            document.add(new Paragraph("\n").setFontSize(6));
+
+            List<ParameterSummary> summaries = numeric.isEmpty()
+                    ? List.of()
+                    : historyService.summarizeHistory(deviceId, startTime, endTime, numeric);
+
+            if (summaries.stream().allMatch(summary -> summary.getSampleCount() == 0)) {
+                document.add(new Paragraph("No data available for the specified period.").setFontSize(10));
+            } else {
+                document.add(buildSummaryTable(summaries));
+                if (summaries.stream().anyMatch(ParameterSummary::isApproximate)) {
+                    document.add(new Paragraph("Median, P95 and time outside are estimated from aggregated "
+                            + "data for this period.").setFontSize(7).setItalic());
+                }
+
+                long bucketSeconds = HistoryService.chooseBucketSeconds(startTime, endTime, CHART_POINTS);
+                List<HistoryDataPoint> buckets = historyService.aggregateHistory(
+                        deviceId, startTime, endTime, numeric, bucketSeconds, AggregateFunction.AVG);
+
+                float chartWidth = pdf.getDefaultPageSize().getWidth() - 40;
+                for (ParameterSummary summary : summaries) {
+                    if (summary.getSampleCount() == 0) {
+                        continue;
+                    }
+                    document.add(new Paragraph(summary.getDisplayName() + " (average per "
+                            + formatDuration(bucketSeconds) + ")").setFontSize(9).setBold().setMarginTop(8));
+                    document.add(new Image(drawChart(pdf, summary, buckets, bucketSeconds, startTime, endTime, chartWidth)));
+                }
+            }
+
+            document.add(new Paragraph("\n").setFontSize(6));
+            document.add(new Paragraph("Generated on: " + LocalDateTime.now().format(DATE_FORMATTER))
+                    .setFontSize(8)
+                    .setTextAlignment(TextAlignment.RIGHT));
+
+            document.close();
+            logger.info("PDF summary report generated for device: {} with {} parameters", deviceId, summaries.size());
+        } catch (Exception e) {
+            logger.error("Error generating PDF summary report: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to generate PDF summary report", e);
+        }
+    }
+
+    private Table buildSummaryTable(List<ParameterSummary> summaries) {
+        String[] headers = {"Parameter", "Samples", "Min", "Avg", "Max", "Median", "P95", "Threshold",
+                "Time Outside"};
+        Table table = new Table(UnitValue.createPercentArray(new float[]{3, 1.2f, 1, 1, 1, 1, 1, 1.8f, 1.5f}))
+                .useAllAvailableWidth();
+        table.setFontSize(7);
+
+        for (String header : headers) {
+            table.addHeaderCell(new Cell()
+                    .add(new Paragraph(header).setFontSize(8).setBold())
+                    .setBackgroundColor(ColorConstants.LIGHT_GRAY)
+                    .setTextAlignment(TextAlignment.CENTER)
+                    .setPadding(3));
+        }
+
+        for (ParameterSummary summary : summaries) {
+            String threshold = summary.getThresholdMin() != null
+                    ? formatValue(summary.getThresholdMin()) + " - " + formatValue(summary.getThresholdMax())
+                    : "-";
+            String timeOutside = summary.getSecondsOutsideThreshold() != null
+                    ? formatDuration(summary.getSecondsOutsideThreshold())
+                    : "-";
+            String[] cells = {summary.getDisplayName(), String.valueOf(summary.getSampleCount()),
+                    formatValue(summary.getMin()), formatValue(summary.getAvg()), formatValue(summary.getMax()),
+                    formatValue(summary.getP50()), formatValue(summary.getP95()), threshold, timeOutside};
+            for (String cell : cells) {
+                table.addCell(new Cell()
+                        .add(new Paragraph(cell).setFontSize(7))
+                        .setTextAlignment(TextAlignment.CENTER)
+                        .setPadding(2));
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Draw a line chart of one parameter's bucket averages as a form XObject.
+     * The line is broken where buckets are missing; threshold limits inside the value range are drawn dashed.
+     */
+    private PdfFormXObject drawChart(PdfDocument pdf, ParameterSummary summary, List<HistoryDataPoint> buckets,
+                                     long bucketSeconds, LocalDateTime startTime, LocalDateTime endTime,
+                                     float width) throws IOException {
+        float left = 40;
+        float bottom = 14;
+        float plotWidth = width - left - 5;
+        float plotHeight = CHART_HEIGHT - bottom - 5;
+
+        PdfFormXObject chart = new PdfFormXObject(new Rectangle(width, CHART_HEIGHT));
+        PdfCanvas canvas = new PdfCanvas(chart, pdf);
+        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+
+        double min = summary.getMin();
+        double max = summary.getMax();
+        if (max - min < 1e-9) {
+            min -= 1;
+            max += 1;
+        }
+        long startSecond = startTime.toEpochSecond(ZoneOffset.UTC);
+        double rangeSeconds = Math.max(1, endTime.toEpochSecond(ZoneOffset.UTC) - startSecond);
+        double yMin = min;
+        double yRange = max - min;
+
+        canvas.setStrokeColor(ColorConstants.LIGHT_GRAY).setLineWidth(0.5f)
+                .rectangle(left, bottom, plotWidth, plotHeight).stroke();
+
+        // Threshold limits
+        canvas.setStrokeColor(ColorConstants.RED).setLineDash(3, 2);
+        for (Double limit : new Double[]{summary.getThresholdMin(), summary.getThresholdMax()}) {
+            if (limit != null && limit >= min && limit <= max) {
+                float y = bottom + (float) ((limit - yMin) / yRange * plotHeight);
+                canvas.moveTo(left, y).lineTo(left + plotWidth, y).stroke();
+            }
+        }
+        canvas.setLineDash(0);
+
+        // Bucket averages, connected only between consecutive buckets
+        canvas.setStrokeColor(ColorConstants.BLUE).setLineWidth(0.8f);
+        long previousSecond = Long.MIN_VALUE;
+        boolean drawing = false;
+        for (HistoryDataPoint bucket : buckets) {
+            Object value = bucket.getParameters().get(summary.getParameter());
+            long second = bucket.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+            if (!(value instanceof Double)) {
+                previousSecond = Long.MIN_VALUE;
+                continue;
+            }
+
+            float x = left + (float) (Math.max(0, second - startSecond) / rangeSeconds * plotWidth);
+            float y = bottom + (float) (((Double) value - yMin) / yRange * plotHeight);
+            if (previousSecond == Long.MIN_VALUE || second - previousSecond > bucketSeconds) {
+                canvas.moveTo(x, y);
+            } else {
+                canvas.lineTo(x, y);
+                drawing = true;
+            }
+            previousSecond = second;
+        }
+        if (drawing) {
+            canvas.stroke();
+        } else {
+            canvas.endPath();
+        }
+
+        // Axis labels
+        canvas.setFillColor(ColorConstants.DARK_GRAY);
+        drawText(canvas, font, formatValue(max), 2, bottom + plotHeight - 6);
+        drawText(canvas, font, formatValue(min), 2, bottom);
+        drawText(canvas, font, startTime.format(DATE_FORMATTER), left, 3);
+        drawText(canvas, font, endTime.format(DATE_FORMATTER), left + plotWidth - 60, 3);
+        canvas.release();
+        return chart;
+    }
+
+    private static void drawText(PdfCanvas canvas, PdfFont font, String text, float x, float y) {
+        canvas.beginText().setFontAndSize(font, 6).moveText(x, y).showText(text).endText();
+    }
+
+    /**
+     * Format a duration in seconds as e.g. "2h 05m", "4m 30s" or "15s"
+     */
+    private static String formatDuration(long seconds) {
+        if (seconds >= 3600) {
+            return String.format("%dh %02dm", seconds / 3600, seconds % 3600 / 60);
+        }
+        if (seconds >= 60) {
+            return String.format("%dm %02ds", seconds / 60, seconds % 60);
+        }
+        return seconds + "s";
+    }
+
     /**
      * Format value for display
      */
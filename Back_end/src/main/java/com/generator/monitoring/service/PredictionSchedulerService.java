@@ -1,21 +1,87 @@
 package com.generator.monitoring.service;
 
+import com.generator.monitoring.dto.PredictionRunMetrics;
 import com.generator.monitoring.entity.Device;
-import com.generator.monitoring.repository.DeviceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Collects prediction data for every device on a bounded worker pool.
+ * Each device runs in its own transaction with a timeout, so one slow device cannot hold up the run.
+ * A run that is still busy when the next one is due causes that one to be skipped.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PredictionSchedulerService {
 
-    private final DeviceRepository deviceRepository;
+    private final DeviceRegistry deviceRegistry;
     private final PredictionService predictionService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${predictions.worker-threads:8}")
+    private int workerThreads;
+
+    // Transaction timeout of one device
+    @Value("${predictions.device-timeout-seconds:30}")
+    private int deviceTimeoutSeconds;
+
+    // Devices still unfinished after this are cancelled; stays below the 30 minute schedule
+    @Value("${predictions.run-timeout-minutes:10}")
+    private long runTimeoutMinutes;
+
+    private ExecutorService executor;
+    private TransactionTemplate deviceTransaction;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile long totalRuns;
+    private volatile long skippedRuns;
+    private volatile LocalDateTime lastStartedAt;
+    private volatile long lastDurationMs;
+    private volatile int lastDevices;
+    private volatile int lastSucceeded;
+    private volatile int lastFailed;
+    private volatile int lastTimedOut;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "prediction-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        deviceTransaction = new TransactionTemplate(transactionManager);
+        deviceTransaction.setTimeout(deviceTimeoutSeconds);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
 
 //    /**
 //     * Collect prediction data for all devices every 30 minutes
@@ -23,29 +89,82 @@ public class PredictionSchedulerService {
 //     **/
     @Scheduled(cron = "0 */30 * * * *")
     public void collectPredictionDataForAllDevices() {
-        log.info("Starting scheduled prediction data collection for all devices");
+        if (!running.compareAndSet(false, true)) {
+            skippedRuns++;
+            log.warn("Previous prediction data collection is still running, skipping this run");
+            return;
+        }
 
         try {
-            List<Device> devices = deviceRepository.findAll();
-            log.info("Found {} devices to process", devices.size());
+            runForAllDevices();
+        } catch (Exception e) {
+            log.error("Error in scheduled prediction data collection", e);
+        } finally {
+            running.set(false);
+        }
+    }
 
-            int successCount = 0;
-            int errorCount = 0;
+    private void runForAllDevices() {
+        long startNanos = System.nanoTime();
+        lastStartedAt = LocalDateTime.now();
 
-            for (Device device : devices) {
+        List<Device> devices = new ArrayList<>(deviceRegistry.getAll());
+        log.info("Starting prediction data collection for {} devices on {} threads", devices.size(), workerThreads);
+
+        AtomicInteger successCount = new AtomicInteger();
+        AtomicInteger errorCount = new AtomicInteger();
+        AtomicInteger timeoutCount = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>(devices.size());
+        for (Device device : devices) {
+            String deviceId = device.getDeviceId();
+            futures.add(executor.submit(() -> {
                 try {
-                    predictionService.collectPredictionData(device.getDeviceId());
-                    successCount++;
+                    deviceTransaction.executeWithoutResult(status -> predictionService.collectPredictionData(deviceId));
+                    successCount.incrementAndGet();
                 } catch (Exception e) {
-                    log.error("Error collecting prediction data for device: {}", device.getDeviceId(), e);
-                    errorCount++;
+                    if (isTimeout(e)) {
+                        log.warn("Prediction data collection timed out for device: {}", deviceId);
+                        timeoutCount.incrementAndGet();
+                    } else {
+                        log.error("Error collecting prediction data for device: {}", deviceId, e);
+                        errorCount.incrementAndGet();
+                    }
                 }
-            }
+            }));
+        }
 
-            log.info("Completed prediction data collection. Success: {}, Errors: {}", successCount, errorCount);
-        } catch (Exception e) {
-            log.error("Error in scheduled prediction data collection", e);
+        long deadline = startNanos + TimeUnit.MINUTES.toNanos(runTimeoutMinutes);
+        for (Future<?> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | CancellationException e) {
+                future.cancel(true);
+                timeoutCount.incrementAndGet();
+            } catch (ExecutionException e) {
+                // Device tasks handle their own errors
+                errorCount.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> pending.cancel(true));
+                break;
+            }
         }
+
+        lastDurationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        lastDevices = devices.size();
+        lastSucceeded = successCount.get();
+        lastFailed = errorCount.get();
+        lastTimedOut = timeoutCount.get();
+        totalRuns++;
+
+        log.info("Completed prediction data collection in {} ms. Success: {}, Errors: {}, Timed out: {}",
+                lastDurationMs, lastSucceeded, lastFailed, lastTimedOut);
+    }
+
+    public PredictionRunMetrics getMetrics() {
+        return new PredictionRunMetrics(running.get(), workerThreads, totalRuns, skippedRuns, lastStartedAt,
+                lastDurationMs, lastDevices, lastSucceeded, lastFailed, lastTimedOut);
     }
 
     /**
@@ -56,4 +175,13 @@ public class PredictionSchedulerService {
     // public void collectPredictionDataWithFixedDelay() {
     //     collectPredictionDataForAllDevices();
     // }
+
+    private static boolean isTimeout(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransactionTimedOutException || cause instanceof QueryTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -1,20 +1,23 @@
 package com.generator.monitoring.service;
 
 import com.generator.monitoring.dto.PredictionResponse;
+import com.generator.monitoring.dto.TelemetrySnapshot;
 import com.generator.monitoring.entity.*;
+import com.generator.monitoring.enums.PredictionSeries;
+import com.generator.monitoring.enums.TelemetryParameter;
+import com.generator.monitoring.prediction.DeclineEstimator;
 import com.generator.monitoring.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,13 +25,15 @@ import java.util.stream.Collectors;
 public class PredictionService {
 
     private static final int MAX_HISTORY_RECORDS = 10;
-    private static final int MIN_RECORDS_FOR_PREDICTION = 2;
+    private static final long HISTORY_SLOT_MINUTES = 30;
 
     private final DeviceRepository deviceRepository;
     private final FuelPredictionHistoryRepository fuelHistoryRepository;
     private final BatteryPredictionHistoryRepository batteryHistoryRepository;
     private final PredictionMetricsRepository predictionMetricsRepository;
-    private final TelemetryHistoryRepository telemetryHistoryRepository;
+    private final PredictionHistoryJdbcRepository predictionHistoryJdbcRepository;
+    private final LatestTelemetryCache latestTelemetryCache;
+    private final DeclineEstimatorService declineEstimatorService;
 
     /**
      * Collect current fuel and battery data for prediction history
@@ -47,40 +52,31 @@ public class PredictionService {
         Device device = deviceOpt.get();
 
         // Get latest telemetry data
-        List<TelemetryHistory> latestTelemetry = telemetryHistoryRepository.findLatestByDevice(device);
-        if (latestTelemetry.isEmpty()) {
+        TelemetrySnapshot latest = latestTelemetryCache.get(deviceId);
+        if (latest == null) {
             log.warn("No telemetry data found for device: {}", deviceId);
             return;
         }
 
-        TelemetryHistory latest = latestTelemetry.get(0);
+        Double fuelLevel = (Double) latest.getParameters().get(TelemetryParameter.FUEL_LEVEL.getKey());
+        Double batteryVolts = (Double) latest.getParameters().get(TelemetryParameter.BATTERY_VOLTS.getKey());
+
+        // One ring buffer slot per collection interval; a slot is overwritten once the buffer has wrapped around
+        LocalDateTime now = LocalDateTime.now();
+        int slot = historySlot(now);
 
         // Save fuel level if available
-        if (latest.getFuelLevel() != null) {
-            FuelPredictionHistory fuelHistory = new FuelPredictionHistory();
-            fuelHistory.setDevice(device);
-            fuelHistory.setFuelLevel(latest.getFuelLevel());
-            fuelHistory.setTimestamp(LocalDateTime.now());
-            fuelHistoryRepository.save(fuelHistory);
-            log.info("Saved fuel level: {} for device: {}", latest.getFuelLevel(), deviceId);
-
-            // Keep only latest 10 records
-            cleanupOldRecords(device, fuelHistoryRepository);
+        if (fuelLevel != null) {
+            predictionHistoryJdbcRepository.upsertFuel(device.getId(), slot, now, fuelLevel);
+            log.info("Saved fuel level: {} for device: {}", fuelLevel, deviceId);
         }
 
         // Save battery SOC if available (using batteryVolts as SOC percentage)
-        if (latest.getBatteryVolts() != null) {
-            BatteryPredictionHistory batteryHistory = new BatteryPredictionHistory();
-            batteryHistory.setDevice(device);
-            // Assuming batteryVolts represents SOC percentage (0-100)
-            // If it's actual voltage, you may need to convert it to percentage
-            batteryHistory.setBatterySoc(latest.getBatteryVolts());
-            batteryHistory.setTimestamp(LocalDateTime.now());
-            batteryHistoryRepository.save(batteryHistory);
-            log.info("Saved battery SOC: {} for device: {}", latest.getBatteryVolts(), deviceId);
-
-            // Keep only latest 10 records
-            cleanupOldRecords(device, batteryHistoryRepository);
+        // Assuming batteryVolts represents SOC percentage (0-100)
+        // If it's actual voltage, you may need to convert it to percentage
+        if (batteryVolts != null) {
+            predictionHistoryJdbcRepository.upsertBattery(device.getId(), slot, now, batteryVolts);
+            log.info("Saved battery SOC: {} for device: {}", batteryVolts, deviceId);
         }
 
         // Calculate and update prediction metrics
@@ -88,74 +84,25 @@ public class PredictionService {
     }
 
     /**
-     * Clean up old records, keep only latest 10
+     * Ring buffer slot of a collection time: the number of the 30 minute interval, modulo the buffer size
      */
-    private void cleanupOldRecords(Device device, Object repository) {
-        if (repository instanceof FuelPredictionHistoryRepository) {
-            FuelPredictionHistoryRepository repo = (FuelPredictionHistoryRepository) repository;
-            long count = repo.countByDevice(device);
-            if (count > MAX_HISTORY_RECORDS) {
-                repo.deleteOldestRecordsBeyondLimit(device, MAX_HISTORY_RECORDS);
-            }
-        } else if (repository instanceof BatteryPredictionHistoryRepository) {
-            BatteryPredictionHistoryRepository repo = (BatteryPredictionHistoryRepository) repository;
-            long count = repo.countByDevice(device);
-            if (count > MAX_HISTORY_RECORDS) {
-                repo.deleteOldestRecordsBeyondLimit(device, MAX_HISTORY_RECORDS);
-            }
-        }
+    private static int historySlot(LocalDateTime time) {
+        long interval = time.toEpochSecond(ZoneOffset.UTC) / (HISTORY_SLOT_MINUTES * 60);
+        return (int) (interval % MAX_HISTORY_RECORDS);
     }
 
     /**
-     * Calculate decline rates and predicted runtime
+     * Store the current decline rates and predicted runtime of the online estimators
      */
     @Transactional
     public void calculateAndSavePredictions(Device device) {
         log.info("Calculating predictions for device: {}", device.getDeviceId());
 
-        // Get latest fuel history
-        List<FuelPredictionHistory> fuelHistory = fuelHistoryRepository
-            .findTop10ByDeviceOrderByTimestampDesc(device);
-
-        // Get latest battery history
-        List<BatteryPredictionHistory> batteryHistory = batteryHistoryRepository
-            .findTop10ByDeviceOrderByTimestampDesc(device);
+        DeclineEstimator fuelEstimator = declineEstimatorService.getEstimator(device.getDeviceId(), PredictionSeries.FUEL);
+        DeclineEstimator batteryEstimator = declineEstimatorService.getEstimator(device.getDeviceId(), PredictionSeries.BATTERY);
 
-        // Reverse to get chronological order
-        Collections.reverse(fuelHistory);
-        Collections.reverse(batteryHistory);
-
-        // Calculate fuel decline rate
-        Double fuelDeclineRate = calculateDeclineRate(
-            fuelHistory.stream()
-                .map(h -> new DataPoint(h.getTimestamp(), h.getFuelLevel()))
-                .collect(Collectors.toList())
-        );
-
-        // Calculate battery decline rate
-        Double batteryDeclineRate = calculateDeclineRate(
-            batteryHistory.stream()
-                .map(h -> new DataPoint(h.getTimestamp(), h.getBatterySoc()))
-                .collect(Collectors.toList())
-        );
-
-        // Calculate predicted runtime
-        Double fuelRuntimeHours = null;
-        Double batteryRuntimeHours = null;
-
-        if (fuelDeclineRate != null && !fuelHistory.isEmpty()) {
-            double currentLevel = fuelHistory.get(fuelHistory.size() - 1).getFuelLevel();
-            if (fuelDeclineRate > 0) {
-                fuelRuntimeHours = currentLevel / fuelDeclineRate;
-            }
-        }
-
-        if (batteryDeclineRate != null && !batteryHistory.isEmpty()) {
-            double currentSoc = batteryHistory.get(batteryHistory.size() - 1).getBatterySoc();
-            if (batteryDeclineRate > 0) {
-                batteryRuntimeHours = currentSoc / batteryDeclineRate;
-            }
-        }
+        Double fuelDeclineRate = fuelEstimator != null ? fuelEstimator.getDeclineRate() : null;
+        Double batteryDeclineRate = batteryEstimator != null ? batteryEstimator.getDeclineRate() : null;
 
         // Save or update prediction metrics
         PredictionMetrics metrics = predictionMetricsRepository.findByDevice(device)
@@ -164,8 +111,8 @@ public class PredictionService {
         metrics.setDevice(device);
         metrics.setFuelDeclineRate(fuelDeclineRate);
         metrics.setBatteryDeclineRate(batteryDeclineRate);
-        metrics.setFuelPredictedRuntimeHours(fuelRuntimeHours);
-        metrics.setBatteryPredictedRuntimeHours(batteryRuntimeHours);
+        metrics.setFuelPredictedRuntimeHours(runtimeHours(fuelEstimator, fuelDeclineRate));
+        metrics.setBatteryPredictedRuntimeHours(runtimeHours(batteryEstimator, batteryDeclineRate));
         metrics.setLastUpdated(LocalDateTime.now());
 
         predictionMetricsRepository.save(metrics);
@@ -173,40 +120,13 @@ public class PredictionService {
     }
 
     /**
-     * Calculate decline rate from historical data points
-     * Returns percentage decline per hour
+     * Hours until the value reaches zero at the given decline rate, null while it is not declining
      */
-    private Double calculateDeclineRate(List<DataPoint> dataPoints) {
-        if (dataPoints.size() < MIN_RECORDS_FOR_PREDICTION) {
-            return null;
-        }
-
-        // Simple linear regression to calculate average decline rate
-        double totalDecline = 0;
-        double totalHours = 0;
-        int validPairs = 0;
-
-        for (int i = 1; i < dataPoints.size(); i++) {
-            DataPoint prev = dataPoints.get(i - 1);
-            DataPoint current = dataPoints.get(i);
-
-            double valueDiff = prev.value - current.value;
-            Duration duration = Duration.between(prev.timestamp, current.timestamp);
-            double hours = duration.toMinutes() / 60.0;
-
-            if (hours > 0 && valueDiff >= 0) {
-                totalDecline += valueDiff;
-                totalHours += hours;
-                validPairs++;
-            }
-        }
-
-        if (validPairs == 0 || totalHours == 0) {
+    private Double runtimeHours(DeclineEstimator estimator, Double declineRate) {
+        if (estimator == null || declineRate == null || declineRate <= 0 || estimator.getLastValue() == null) {
             return null;
         }
-
-        // Average decline rate per hour
-        return totalDecline / totalHours;
+        return estimator.getLastValue() / declineRate;
     }
 
     /**
@@ -241,32 +161,32 @@ public class PredictionService {
 
         Collections.reverse(history);
 
-        if (history.isEmpty()) {
+        // Live values of the online estimator; the history only feeds the chart
+        DeclineEstimator estimator = declineEstimatorService.getEstimator(device.getDeviceId(), PredictionSeries.FUEL);
+        Double currentLevel = estimator != null ? estimator.getLastValue() : null;
+        if (currentLevel == null && !history.isEmpty()) {
+            currentLevel = history.get(history.size() - 1).getFuelLevel();
+        }
+
+        if (currentLevel == null) {
             return PredictionResponse.FuelPredictionData.builder()
                 .hasEnoughData(false)
                 .message("No fuel data available")
                 .historicalData(new ArrayList<>())
                 .build();
         }
+        Double declineRate = estimator != null ? estimator.getDeclineRate() : null;
 
-        double currentLevel = history.get(history.size() - 1).getFuelLevel();
-
-        Optional<PredictionMetrics> metricsOpt = predictionMetricsRepository.findByDevice(device);
-
-        if (metricsOpt.isEmpty() || metricsOpt.get().getFuelDeclineRate() == null) {
+        if (declineRate == null) {
             return PredictionResponse.FuelPredictionData.builder()
                 .currentLevel(currentLevel)
-                .hasEnoughData(history.size() < MIN_RECORDS_FOR_PREDICTION)
-                .message(history.size() < MIN_RECORDS_FOR_PREDICTION
-                    ? "Collecting data... Need at least " + MIN_RECORDS_FOR_PREDICTION + " records"
-                    : "Calculating predictions...")
+                .hasEnoughData(false)
+                .message("Collecting data... Not enough samples for a prediction yet")
                 .historicalData(buildHistoricalDataPoints(history))
                 .build();
         }
 
-        PredictionMetrics metrics = metricsOpt.get();
-        Double declineRate = metrics.getFuelDeclineRate();
-        Double runtimeHours = metrics.getFuelPredictedRuntimeHours();
+        Double runtimeHours = runtimeHours(estimator, declineRate);
         Double runtimeMinutes = runtimeHours != null ? runtimeHours * 60 : null;
         LocalDateTime estimatedEmptyTime = runtimeHours != null
             ? LocalDateTime.now().plusMinutes(runtimeMinutes.longValue())
@@ -279,7 +199,7 @@ public class PredictionService {
             .predictedRuntimeMinutes(runtimeMinutes)
             .estimatedEmptyTime(estimatedEmptyTime)
             .hasEnoughData(true)
-            .message("Prediction based on " + history.size() + " data points")
+            .message("Prediction based on " + estimator.getSamples() + " samples")
             .historicalData(buildHistoricalDataPoints(history))
             .build();
     }
@@ -290,32 +210,32 @@ public class PredictionService {
 
         Collections.reverse(history);
 
-        if (history.isEmpty()) {
+        // Live values of the online estimator; the history only feeds the chart
+        DeclineEstimator estimator = declineEstimatorService.getEstimator(device.getDeviceId(), PredictionSeries.BATTERY);
+        Double currentSoc = estimator != null ? estimator.getLastValue() : null;
+        if (currentSoc == null && !history.isEmpty()) {
+            currentSoc = history.get(history.size() - 1).getBatterySoc();
+        }
+
+        if (currentSoc == null) {
             return PredictionResponse.BatteryPredictionData.builder()
                 .hasEnoughData(false)
                 .message("No battery data available")
                 .historicalData(new ArrayList<>())
                 .build();
         }
+        Double declineRate = estimator != null ? estimator.getDeclineRate() : null;
 
-        double currentSoc = history.get(history.size() - 1).getBatterySoc();
-
-        Optional<PredictionMetrics> metricsOpt = predictionMetricsRepository.findByDevice(device);
-
-        if (metricsOpt.isEmpty() || metricsOpt.get().getBatteryDeclineRate() == null) {
+        if (declineRate == null) {
             return PredictionResponse.BatteryPredictionData.builder()
                 .currentSoc(currentSoc)
-                .hasEnoughData(history.size() < MIN_RECORDS_FOR_PREDICTION)
-                .message(history.size() < MIN_RECORDS_FOR_PREDICTION
-                    ? "Collecting data... Need at least " + MIN_RECORDS_FOR_PREDICTION + " records"
-                    : "Calculating predictions...")
+                .hasEnoughData(false)
+                .message("Collecting data... Not enough samples for a prediction yet")
                 .historicalData(buildHistoricalDataPoints(history))
                 .build();
         }
 
-        PredictionMetrics metrics = metricsOpt.get();
-        Double declineRate = metrics.getBatteryDeclineRate();
-        Double runtimeHours = metrics.getBatteryPredictedRuntimeHours();
+        Double runtimeHours = runtimeHours(estimator, declineRate);
         Double runtimeMinutes = runtimeHours != null ? runtimeHours * 60 : null;
         LocalDateTime estimatedEmptyTime = runtimeHours != null
             ? LocalDateTime.now().plusMinutes(runtimeMinutes.longValue())
@@ -328,7 +248,7 @@ public class PredictionService {
             .predictedRuntimeMinutes(runtimeMinutes)
             .estimatedEmptyTime(estimatedEmptyTime)
             .hasEnoughData(true)
-            .message("Prediction based on " + history.size() + " data points")
+            .message("Prediction based on " + estimator.getSamples() + " samples")
             .historicalData(buildHistoricalDataPoints(history))
             .build();
     }
@@ -354,17 +274,4 @@ public class PredictionService {
 
         return dataPoints;
     }
-
-    /**
-     * Helper class for data points
-     */
-    private static class DataPoint {
-        LocalDateTime timestamp;
-        Double value;
-
-        DataPoint(LocalDateTime timestamp, Double value) {
-            this.timestamp = timestamp;
-            this.value = value;
-        }
-    }
 }
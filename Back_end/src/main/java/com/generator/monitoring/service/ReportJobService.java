@@ -0,0 +1,296 @@
+package com.generator.monitoring.service;
+
+import com.generator.monitoring.dto.ReportJobDto;
+import com.generator.monitoring.enums.ReportJobStatus;
+import com.generator.monitoring.enums.ReportMode;
+import com.generator.monitoring.exception.InvalidInputException;
+import com.generator.monitoring.exception.ReportJobNotFoundException;
+import com.generator.monitoring.exception.ReportQueueFullException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders PDF reports (table or summary) as background jobs on a bounded worker pool, off the request threads.
+ * Finished reports are kept on local disk, keyed by device, time range and parameters,
+ * so an identical request within the cache TTL completes immediately without rendering.
+ * Identical requests submitted while a report is still rendering share the same job.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    @Autowired
+    private PdfReportService pdfReportService;
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Value("${reports.worker-threads:2}")
+    private int workerThreads;
+
+    @Value("${reports.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${reports.cache-dir:${java.io.tmpdir}/generator-reports}")
+    private String cacheDirectory;
+
+    @Value("${reports.cache-ttl-minutes:60}")
+    private long cacheTtlMinutes;
+
+    private Path cacheDir;
+    private ThreadPoolExecutor executor;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    // Jobs that are queued or rendering, by cache key
+    private final Map<String, ReportJob> activeJobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        cacheDir = Paths.get(cacheDirectory);
+        Files.createDirectories(cacheDir);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "report-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        logger.info("Report jobs use {} workers, queue capacity {}, cache {} with TTL {} minutes",
+                workerThreads, queueCapacity, cacheDir, cacheTtlMinutes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Submit a report; returns a completed job right away when the report is cached
+     */
+    public ReportJobDto submit(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                               List<String> parameters, ReportMode mode) {
+        if (parameters == null || parameters.isEmpty()) {
+            throw new InvalidInputException("At least one parameter is required for a report");
+        }
+        historyService.validateQuery(deviceId, startTime, endTime);
+
+        String key = cacheKey(deviceId, startTime, endTime, parameters, mode);
+        Path file = cacheDir.resolve(key + ".pdf");
+
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), key, deviceId, file);
+        if (isFresh(file)) {
+            job.complete(true);
+            jobs.put(job.id, job);
+            logger.info("Report job {} for device {} served from cache", job.id, deviceId);
+            return toDto(job);
+        }
+
+        ReportJob running = activeJobs.putIfAbsent(key, job);
+        if (running != null) {
+            return toDto(running);
+        }
+
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> render(job, startTime, endTime, parameters, mode));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(key, job);
+            jobs.remove(job.id);
+            throw new ReportQueueFullException("Too many reports are being generated, please try again later");
+        }
+
+        logger.info("Report job {} queued for device {}", job.id, deviceId);
+        return toDto(job);
+    }
+
+    public ReportJobDto getJob(String jobId) {
+        return toDto(findJob(jobId));
+    }
+
+    /**
+     * PDF of a completed job, or null while the job is still queued or running
+     */
+    public Path getReportFile(String jobId) {
+        ReportJob job = findJob(jobId);
+        if (job.status == ReportJobStatus.FAILED) {
+            throw new InvalidInputException("Report job failed: " + job.error);
+        }
+        if (job.status != ReportJobStatus.COMPLETED) {
+            return null;
+        }
+        if (!Files.exists(job.file)) {
+            throw new ReportJobNotFoundException("Report has expired: " + jobId);
+        }
+        return job.file;
+    }
+
+    private ReportJob findJob(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ReportJobNotFoundException("Report job not found: " + jobId);
+        }
+        return job;
+    }
+
+    private void render(ReportJob job, LocalDateTime startTime, LocalDateTime endTime, List<String> parameters,
+                        ReportMode mode) {
+        job.status = ReportJobStatus.RUNNING;
+        Path temp = null;
+        try {
+            // Render next to the cache file and move it in place, so readers never see a partial PDF
+            temp = Files.createTempFile(cacheDir, job.key, ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                if (mode == ReportMode.SUMMARY) {
+                    pdfReportService.writeSummaryReport(job.deviceId, startTime, endTime, parameters, out);
+                } else {
+                    pdfReportService.writeReport(job.deviceId, startTime, endTime, parameters, out,
+                            progress -> job.progress = (int) Math.min(99, Math.max(0, progress * 100)));
+                }
+            }
+            Files.move(temp, job.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.complete(false);
+            logger.info("Report job {} for device {} completed", job.id, job.deviceId);
+        } catch (Exception e) {
+            job.fail(e.getMessage());
+            logger.error("Report job {} for device {} failed: {}", job.id, job.deviceId, e.getMessage(), e);
+            deleteQuietly(temp);
+        } finally {
+            activeJobs.remove(job.key, job);
+        }
+    }
+
+    /**
+     * Delete cached reports and forget finished jobs once they are older than the cache TTL
+     */
+    @Scheduled(fixedDelayString = "${reports.cleanup-interval-ms:300000}")
+    public void evictExpired() {
+        LocalDateTime jobCutoff = LocalDateTime.now().minusMinutes(cacheTtlMinutes);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(jobCutoff));
+
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir, "*.pdf")) {
+            for (Path file : files) {
+                if (!isFresh(file)) {
+                    deleteQuietly(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error cleaning up report cache {}: {}", cacheDir, e.getMessage(), e);
+        }
+
+        if (deleted > 0) {
+            logger.info("Deleted {} expired reports from the cache", deleted);
+        }
+    }
+
+    private boolean isFresh(Path file) {
+        try {
+            Instant modified = Files.getLastModifiedTime(file).toInstant();
+            return modified.isAfter(Instant.now().minus(Duration.ofMinutes(cacheTtlMinutes)));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * SHA-256 of the report inputs; parameter order is kept because it is the column order
+     */
+    private static String cacheKey(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                   List<String> parameters, ReportMode mode) {
+        String input = mode + "|" + deviceId + "|" + startTime + "|" + endTime + "|" + String.join(",", parameters);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(input.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private ReportJobDto toDto(ReportJob job) {
+        return new ReportJobDto(job.id, job.deviceId, job.status, job.progress, job.cached,
+                job.error, job.createdAt, job.completedAt);
+    }
+
+    /**
+     * State of one report job; written by its worker, read by status requests
+     */
+    private static class ReportJob {
+        private final String id;
+        private final String key;
+        private final String deviceId;
+        private final Path file;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile ReportJobStatus status = ReportJobStatus.QUEUED;
+        private volatile int progress;
+        private volatile boolean cached;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+
+        ReportJob(String id, String key, String deviceId, Path file) {
+            this.id = id;
+            this.key = key;
+            this.deviceId = deviceId;
+            this.file = file;
+        }
+
+        void complete(boolean fromCache) {
+            cached = fromCache;
+            progress = 100;
+            completedAt = LocalDateTime.now();
+            status = ReportJobStatus.COMPLETED;
+        }
+
+        void fail(String message) {
+            error = message;
+            completedAt = LocalDateTime.now();
+            status = ReportJobStatus.FAILED;
+        }
+    }
+}
@@ -1,18 +1,33 @@
 package com.generator.monitoring.service;
 
+import com.generator.monitoring.dto.RetentionProgress;
+import com.generator.monitoring.entity.RetentionRun;
+import com.generator.monitoring.enums.RetentionRunStatus;
+import com.generator.monitoring.repository.RetentionRunRepository;
+import com.generator.monitoring.repository.TelemetryHistoryJdbcRepository;
 import com.generator.monitoring.repository.TelemetryHistoryRepository;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Service to clean up telemetry data older than 6 weeks
  * Runs daily at 2 AM
+ * When telemetry_history is partitioned, expired partitions are dropped whole first.
+ * Remaining expired rows are deleted in small id windows, each in its own short transaction
+ * with a pause in between, so cleanup never holds locks that block ingest. Progress is
+ * checkpointed in retention_runs after every window and an interrupted run resumes on startup.
  */
 @Service
 public class TelemetryCleanupService {
@@ -23,48 +38,192 @@ public class TelemetryCleanupService {
     @Autowired
     private TelemetryHistoryRepository telemetryHistoryRepository;
 
+    @Autowired
+    private TelemetryHistoryJdbcRepository telemetryHistoryJdbcRepository;
+
+    @Autowired
+    private TelemetryPartitionService telemetryPartitionService;
+
+    @Autowired
+    private RetentionRunRepository retentionRunRepository;
+
+    // Ids covered by one delete statement
+    @Value("${retention.chunk-size:10000}")
+    private long chunkSize;
+
+    // Pause between delete statements, leaves room for ingest and autovacuum
+    @Value("${retention.chunk-pause-ms:200}")
+    private long chunkPauseMs;
+
+    // One run at a time, on its own thread
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "telemetry-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile RetentionRun currentRun;
+    private volatile boolean running;
+    private volatile long resumedAtNanos;
+    private volatile long resumedDeletedRows;
+
+    /**
+     * Resume a run that was interrupted by a shutdown or crash
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        retentionRunRepository.findFirstByStatusOrderByIdDesc(RetentionRunStatus.RUNNING).ifPresent(run -> {
+            logger.info("Resuming telemetry cleanup run {} at id {} (cutoff {})",
+                    run.getId(), run.getNextId(), run.getCutoff());
+            startRun(run);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // The interrupted run stays RUNNING and is resumed on the next start
+        executor.shutdownNow();
+    }
+
     /**
      * Scheduled job to delete telemetry data older than 6 weeks
      * Runs daily at 2:00 AM
      */
     @Scheduled(cron = "0 0 2 * * ?")
-    @Transactional
     public void cleanupOldTelemetryData() {
         try {
-            LocalDateTime cutoffDate = LocalDateTime.now().minusWeeks(RETENTION_WEEKS);
-            logger.info("Starting telemetry cleanup for data older than: {}", cutoffDate);
+            RetentionProgress progress = startCleanup();
+            logger.info("Telemetry cleanup run {} started for data older than: {}",
+                    progress.getRunId(), progress.getCutoff());
+        } catch (Exception e) {
+            logger.error("Error during telemetry cleanup: {}", e.getMessage(), e);
+        }
+    }
 
-            // Count records before deletion
-            long recordCount = telemetryHistoryRepository.countByTimestampBefore(cutoffDate);
+    /**
+     * Manual cleanup method that can be called via API
+     * Starts a run in the background, or returns the progress of the one already running
+     */
+    public RetentionProgress performManualCleanup() {
+        logger.info("Manual telemetry cleanup triggered");
+        return startCleanup();
+    }
+
+    private synchronized RetentionProgress startCleanup() {
+        if (running) {
+            return toProgress(currentRun);
+        }
+
+        RetentionRun run = new RetentionRun();
+        run.setCutoff(LocalDateTime.now().minusWeeks(RETENTION_WEEKS));
+        run.setStatus(RetentionRunStatus.RUNNING);
+        run.setStartedAt(LocalDateTime.now());
+        run = retentionRunRepository.save(run);
+
+        startRun(run);
+        return toProgress(run);
+    }
+
+    private synchronized void startRun(RetentionRun run) {
+        currentRun = run;
+        running = true;
+        executor.execute(() -> {
+            try {
+                execute(run);
+            } finally {
+                running = false;
+            }
+        });
+    }
+
+    private void execute(RetentionRun run) {
+        resumedAtNanos = System.nanoTime();
+        resumedDeletedRows = run.getDeletedRows();
+
+        try {
+            if (run.getEndId() == null) {
+                if (telemetryPartitionService.isPartitioned()) {
+                    run.setDroppedPartitions(telemetryPartitionService.dropPartitionsBefore(run.getCutoff()));
+                }
 
-            if (recordCount == 0) {
-                logger.info("No telemetry records to clean up");
-                return;
+                // Rows are inserted in time order, so everything up to the newest expired row's id is a candidate
+                Long endId = telemetryHistoryJdbcRepository.findLastIdBefore(run.getCutoff());
+                Long startId = endId != null ? telemetryHistoryJdbcRepository.findMinId() : null;
+                run.setStartId(startId);
+                run.setNextId(startId);
+                run.setEndId(endId != null ? endId : 0L);
+                retentionRunRepository.save(run);
             }
 
-            // Delete old records
-            int deletedCount = telemetryHistoryRepository.deleteByTimestampBefore(cutoffDate);
+            while (run.getNextId() != null && run.getNextId() <= run.getEndId()) {
+                long fromId = run.getNextId();
+                long toId = Math.min(fromId + chunkSize, run.getEndId() + 1);
+
+                int deleted = telemetryHistoryJdbcRepository.deleteWindowBefore(fromId, toId, run.getCutoff());
+                run.setDeletedRows(run.getDeletedRows() + deleted);
+                run.setChunks(run.getChunks() + 1);
+                run.setNextId(toId);
+                retentionRunRepository.save(run);
 
-            logger.info("Telemetry cleanup completed. Deleted {} records older than {} weeks",
-                    deletedCount, RETENTION_WEEKS);
+                if (chunkPauseMs > 0 && toId <= run.getEndId()) {
+                    Thread.sleep(chunkPauseMs);
+                }
+            }
 
+            run.setStatus(RetentionRunStatus.COMPLETED);
+            run.setFinishedAt(LocalDateTime.now());
+            retentionRunRepository.save(run);
+            logger.info("Telemetry cleanup completed. Dropped {} partitions and deleted {} records older than {} weeks",
+                    run.getDroppedPartitions(), run.getDeletedRows(), RETENTION_WEEKS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Telemetry cleanup run {} interrupted at id {}, it resumes on the next start",
+                    run.getId(), run.getNextId());
         } catch (Exception e) {
-            logger.error("Error during telemetry cleanup: {}", e.getMessage(), e);
+            logger.error("Error during telemetry cleanup run {}: {}", run.getId(), e.getMessage(), e);
+            run.setStatus(RetentionRunStatus.FAILED);
+            run.setFinishedAt(LocalDateTime.now());
+            run.setError(e.getMessage() != null && e.getMessage().length() > 1000
+                    ? e.getMessage().substring(0, 1000) : e.getMessage());
+            retentionRunRepository.save(run);
         }
     }
 
     /**
-     * Manual cleanup method that can be called via API
+     * Progress of the current or last cleanup run, null when there has never been one
      */
-    @Transactional
-    public int performManualCleanup() {
-        LocalDateTime cutoffDate = LocalDateTime.now().minusWeeks(RETENTION_WEEKS);
-        logger.info("Manual telemetry cleanup triggered for data older than: {}", cutoffDate);
+    public RetentionProgress getProgress() {
+        RetentionRun run = currentRun;
+        if (run == null) {
+            run = retentionRunRepository.findFirstByOrderByIdDesc().orElse(null);
+        }
+        return run != null ? toProgress(run) : null;
+    }
 
-        int deletedCount = telemetryHistoryRepository.deleteByTimestampBefore(cutoffDate);
+    private RetentionProgress toProgress(RetentionRun run) {
+        double percent;
+        if (run.getStatus() == RetentionRunStatus.COMPLETED) {
+            percent = 100;
+        } else if (run.getStartId() == null || run.getNextId() == null) {
+            percent = 0;
+        } else {
+            double total = Math.max(1, run.getEndId() + 1 - run.getStartId());
+            percent = Math.min(100, (run.getNextId() - run.getStartId()) / total * 100);
+        }
+
+        double rowsPerSecond;
+        if (run.getStatus() == RetentionRunStatus.RUNNING) {
+            double seconds = (System.nanoTime() - resumedAtNanos) / 1e9;
+            rowsPerSecond = run == currentRun && seconds > 0 ? (run.getDeletedRows() - resumedDeletedRows) / seconds : 0;
+        } else {
+            double seconds = run.getFinishedAt() != null
+                    ? Duration.between(run.getStartedAt(), run.getFinishedAt()).toMillis() / 1000.0 : 0;
+            rowsPerSecond = seconds > 0 ? run.getDeletedRows() / seconds : 0;
+        }
 
-        logger.info("Manual cleanup completed. Deleted {} records", deletedCount);
-        return deletedCount;
+        return new RetentionProgress(run.getId(), run.getStatus(), run.getCutoff(), run.getStartedAt(),
+                run.getFinishedAt(), run.getDeletedRows(), run.getChunks(), run.getDroppedPartitions(),
+                Math.round(percent * 10) / 10.0, Math.round(rowsPerSecond * 10) / 10.0, run.getError());
     }
 
     /**
@@ -0,0 +1,419 @@
+package com.generator.monitoring.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.generator.monitoring.dto.AlarmData;
+import com.generator.monitoring.dto.DeviceDataMessage;
+import com.generator.monitoring.dto.PipelineStageMetrics;
+import com.generator.monitoring.dto.TelemetryData;
+import com.generator.monitoring.entity.AlarmEvent;
+import com.generator.monitoring.entity.Device;
+import com.generator.monitoring.entity.TelemetryHistory;
+import com.generator.monitoring.enums.OverflowPolicy;
+import com.generator.monitoring.pipeline.IngestMessage;
+import com.generator.monitoring.pipeline.PipelineStage;
+import com.generator.monitoring.pipeline.SpillFile;
+import com.generator.monitoring.repository.DeviceRepository;
+import com.generator.monitoring.repository.TelemetryHistoryJdbcRepository;
+import com.generator.monitoring.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Staged ingest pipeline for MQTT telemetry:
+ * decode -> enrich -> evaluate -> (fan out, persist)
+ * Every stage has its own bounded queue and worker threads, so a slow database write
+ * never blocks the MQTT client callback thread.
+ */
+@Service
+public class TelemetryIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryIngestService.class);
+    private static final long SHUTDOWN_TIMEOUT_MS = 10000;
+
+    @Autowired
+    private AlarmEventService alarmEventService;
+
+    @Autowired
+    private DeclineEstimatorService declineEstimatorService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private LastSeenTracker lastSeenTracker;
+
+    @Autowired
+    private LatestTelemetryCache latestTelemetryCache;
+
+    @Autowired
+    private TelemetryHistoryJdbcRepository telemetryHistoryJdbcRepository;
+
+    @Autowired
+    private TelemetryRollupService telemetryRollupService;
+
+    @Autowired
+    private ThresholdService thresholdService;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Value("${ingest.pipeline.workers:4}")
+    private int workers;
+
+    @Value("${ingest.pipeline.persist-workers:4}")
+    private int persistWorkers;
+
+    @Value("${ingest.pipeline.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${ingest.pipeline.overflow-policy:SPILL}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${ingest.pipeline.persist-batch-size:500}")
+    private int persistBatchSize;
+
+    @Value("${ingest.pipeline.persist-flush-interval-ms:1000}")
+    private long persistFlushIntervalMs;
+
+    @Value("${ingest.pipeline.spill-dir:data/ingest-spill}")
+    private String spillDir;
+
+    private final ObjectMapper objectMapper;
+
+    // Timestamp of the newest evaluated sample per device; the evaluate stage handles a device on one lane
+    private final Map<String, LocalDateTime> lastEvaluated = new ConcurrentHashMap<>();
+
+    private SpillFile spillFile;
+    private PipelineStage<IngestMessage> decodeStage;
+    private PipelineStage<IngestMessage> enrichStage;
+    private PipelineStage<IngestMessage> evaluateStage;
+    private PipelineStage<IngestMessage> fanOutStage;
+    private PipelineStage<IngestMessage> persistStage;
+
+    public TelemetryIngestService() {
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    @PostConstruct
+    public void start() {
+        spillFile = new SpillFile(Paths.get(spillDir));
+
+        // Only raw messages can be spilled to disk, so inner stages fall back to blocking,
+        // which pushes back onto the decode stage where the configured policy applies.
+        OverflowPolicy innerPolicy = overflowPolicy == OverflowPolicy.SPILL ? OverflowPolicy.BLOCK : overflowPolicy;
+
+        persistStage = PipelineStage.batched("persist", persistWorkers, queueCapacity, innerPolicy,
+                IngestMessage::getDeviceId, this::persist, persistBatchSize, persistFlushIntervalMs);
+        fanOutStage = new PipelineStage<>("fanout", workers, queueCapacity, innerPolicy,
+                IngestMessage::getDeviceId, this::fanOut, null);
+        evaluateStage = new PipelineStage<>("evaluate", workers, queueCapacity, innerPolicy,
+                IngestMessage::getDeviceId, this::evaluate, null);
+        enrichStage = new PipelineStage<>("enrich", workers, queueCapacity, innerPolicy,
+                IngestMessage::getDeviceId, this::enrich, null);
+        decodeStage = new PipelineStage<>("decode", workers, queueCapacity, overflowPolicy,
+                IngestMessage::getDeviceId, this::decode, spillFile::append);
+
+        // Start downstream first so nothing is queued without a consumer
+        persistStage.start();
+        fanOutStage.start();
+        evaluateStage.start();
+        enrichStage.start();
+        decodeStage.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("Draining ingest pipeline");
+        decodeStage.stop(SHUTDOWN_TIMEOUT_MS);
+        enrichStage.stop(SHUTDOWN_TIMEOUT_MS);
+        evaluateStage.stop(SHUTDOWN_TIMEOUT_MS);
+        fanOutStage.stop(SHUTDOWN_TIMEOUT_MS);
+        persistStage.stop(SHUTDOWN_TIMEOUT_MS);
+    }
+
+    /**
+     * Entry point called from the MQTT callback thread.
+     * While a device has spilled messages waiting, its new messages are spilled behind them
+     * so that every device is still processed in arrival order.
+     */
+    public void submit(String deviceId, byte[] payload) {
+        IngestMessage message = new IngestMessage(deviceId, payload, LocalDateTime.now());
+        if (!spillFile.appendIfPending(message)) {
+            decodeStage.submit(message);
+        }
+    }
+
+    /**
+     * Replay spilled messages once the decode stage has drained below half its capacity.
+     * Replayed messages wait for room instead of spilling again, which would reorder them.
+     */
+    @Scheduled(fixedDelayString = "${ingest.pipeline.spill-replay-interval-ms:10000}")
+    public void replaySpilledMessages() {
+        if (spillFile == null || !spillFile.hasPending()
+                || decodeStage.getQueueDepth() > decodeStage.getCapacity() / 2) {
+            return;
+        }
+
+        int replayed = spillFile.replay(decodeStage::submitBlocking);
+        if (replayed > 0) {
+            logger.info("Replayed {} spilled MQTT messages", replayed);
+        }
+    }
+
+    /**
+     * Forget the ordering state of a deleted device once the current transaction commits
+     */
+    public void remove(String deviceId) {
+        TransactionUtils.afterCommit(() -> lastEvaluated.remove(deviceId));
+    }
+
+    public List<PipelineStageMetrics> getMetrics() {
+        return List.of(
+                decodeStage.getMetrics(),
+                enrichStage.getMetrics(),
+                evaluateStage.getMetrics(),
+                fanOutStage.getMetrics(),
+                persistStage.getMetrics()
+        );
+    }
+
+    // ========== STAGES ==========
+
+    private void decode(IngestMessage message) {
+        String payload = new String(message.getPayload(), StandardCharsets.UTF_8);
+        logger.debug("Payload: {}", payload);
+
+        TelemetryData telemetryData;
+        try {
+            telemetryData = objectMapper.readValue(payload, TelemetryData.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid telemetry payload from device " + message.getDeviceId(), e);
+        }
+        telemetryData.setDeviceId(message.getDeviceId());
+
+        if (telemetryData.getTimestamp() == null) {
+            telemetryData.setTimestamp(message.getReceivedAt());
+        }
+
+        message.setTelemetry(telemetryData);
+        LocalDateTime timestamp = telemetryData.getTimestamp();
+        message.setSampledAtMillis(timestamp.toEpochSecond(ZoneOffset.UTC) * 1000 + timestamp.getNano() / 1_000_000);
+        enrichStage.submit(message);
+    }
+
+    private void enrich(IngestMessage message) {
+        String deviceId = message.getDeviceId();
+
+        // Resolve device from the in-memory registry
+        Device device = deviceRegistry.get(deviceId);
+
+        if (device == null) {
+            logger.warn("Unknown device: {}. Creating new device entry.", deviceId);
+            device = createNewDevice(deviceId);
+        }
+
+        // Record heartbeat; written to the database in bulk by LastSeenTracker
+        lastSeenTracker.record(device, message.getReceivedAt());
+        latestTelemetryCache.record(deviceId, message.getTelemetry());
+
+        message.setDevice(device);
+        evaluateStage.submit(message);
+    }
+
+    private void evaluate(IngestMessage message) {
+        // A sample older than one already evaluated would rewind the alarm states and estimators,
+        // so it is only stored and forwarded
+        if (!isNewest(message)) {
+            logger.debug("Skipping evaluation of out-of-order sample from device {} at {}",
+                    message.getDeviceId(), message.getTelemetry().getTimestamp());
+            message.setBackendAlarms(Collections.emptyList());
+            fanOutStage.submit(message);
+            persistStage.submit(message);
+            return;
+        }
+
+        // Evaluate thresholds and generate backend alarms
+        List<AlarmData> backendAlarms = thresholdService.evaluateThresholds(message.getDevice(), message.getTelemetry(),
+                message.getSampledAtMillis());
+        message.setBackendAlarms(backendAlarms);
+
+        // Update the fuel and battery decline estimators
+        declineEstimatorService.record(message.getDevice(), message.getTelemetry());
+
+        fanOutStage.submit(message);
+        persistStage.submit(message);
+    }
+
+    /**
+     * Record the sample time as the newest of its device; false when a newer sample was already evaluated
+     */
+    private boolean isNewest(IngestMessage message) {
+        LocalDateTime timestamp = message.getTelemetry().getTimestamp();
+        LocalDateTime newest = lastEvaluated.merge(message.getDeviceId(), timestamp,
+                (previous, current) -> current.isBefore(previous) ? previous : current);
+        return newest == timestamp;
+    }
+
+    private void fanOut(IngestMessage message) {
+        // Forward data to WebSocket clients
+        DeviceDataMessage dataMessage = new DeviceDataMessage(message.getTelemetry(), message.getBackendAlarms());
+        webSocketService.sendDeviceData(message.getDeviceId(), dataMessage);
+    }
+
+    private void persist(List<IngestMessage> messages) {
+        List<TelemetryHistory> rows = new ArrayList<>(messages.size());
+        List<AlarmEvent> alarmEvents = new ArrayList<>();
+        for (IngestMessage message : messages) {
+            rows.add(toTelemetryHistory(message.getDevice(), message.getTelemetry()));
+            alarmEventService.collectEvents(message, alarmEvents);
+        }
+        alarmEventService.save(alarmEvents);
+
+        try {
+            telemetryHistoryJdbcRepository.insertBatch(rows);
+            telemetryRollupService.record(rows);
+            logger.debug("Saved {} telemetry history rows", rows.size());
+        } catch (DataAccessException e) {
+            // Retry row by row so one bad row (e.g. a device deleted mid-flight) does not lose the whole batch
+            logger.warn("Batch insert of {} telemetry rows failed, retrying individually: {}", rows.size(), e.getMessage());
+            for (TelemetryHistory row : rows) {
+                try {
+                    telemetryHistoryJdbcRepository.insertBatch(List.of(row));
+                    telemetryRollupService.record(List.of(row));
+                } catch (DataAccessException rowError) {
+                    logger.error("Error saving telemetry history for device {}: {}",
+                            row.getDevice().getDeviceId(), rowError.getMessage());
+                }
+            }
+        }
+    }
+
+    private Device createNewDevice(String deviceId) {
+        Device device = new Device();
+        device.setDeviceId(deviceId);
+        device.setName("Generator " + deviceId);
+        device.setLocation("Unknown");
+        device.setActive(true);
+
+        Device saved = deviceRepository.save(device);
+        deviceRegistry.register(saved);
+        return saved;
+    }
+
+    /**
+     * Map telemetry data to a history table row
+     */
+    private TelemetryHistory toTelemetryHistory(Device device, TelemetryData telemetryData) {
+        TelemetryHistory history = new TelemetryHistory();
+        history.setDevice(device);
+        history.setTimestamp(telemetryData.getTimestamp());
+
+        // Copy all telemetry fields
+        history.setRpm(telemetryData.getRpm());
+
+        // Generator Power
+        history.setGeneratorPL1(telemetryData.getGeneratorPL1());
+        history.setGeneratorPL2(telemetryData.getGeneratorPL2());
+        history.setGeneratorPL3(telemetryData.getGeneratorPL3());
+
+        // Generator Reactive Power
+        history.setGeneratorQ(telemetryData.getGeneratorQ());
+        history.setGeneratorQL1(telemetryData.getGeneratorQL1());
+        history.setGeneratorQL2(telemetryData.getGeneratorQL2());
+        history.setGeneratorQL3(telemetryData.getGeneratorQL3());
+
+        // Generator Apparent Power
+        history.setGeneratorS(telemetryData.getGeneratorS());
+        history.setGeneratorSL1(telemetryData.getGeneratorSL1());
+        history.setGeneratorSL2(telemetryData.getGeneratorSL2());
+        history.setGeneratorSL3(telemetryData.getGeneratorSL3());
+
+        history.setGeneratorPowerFactor(telemetryData.getGeneratorPowerFactor());
+        history.setGeneratorFrequency(telemetryData.getGeneratorFrequency());
+
+        // Generator Voltage (Line to Neutral)
+        history.setGeneratorVoltageL1N(telemetryData.getGeneratorVoltageL1N());
+        history.setGeneratorVoltageL2N(telemetryData.getGeneratorVoltageL2N());
+        history.setGeneratorVoltageL3N(telemetryData.getGeneratorVoltageL3N());
+
+        // Generator Voltage (Line to Line)
+        history.setGeneratorVoltageL1L2(telemetryData.getGeneratorVoltageL1L2());
+        history.setGeneratorVoltageL2L3(telemetryData.getGeneratorVoltageL2L3());
+        history.setGeneratorVoltageL3L1(telemetryData.getGeneratorVoltageL3L1());
+
+        // Generator Current
+        history.setGeneratorCurrentL1(telemetryData.getGeneratorCurrentL1());
+        history.setGeneratorCurrentL2(telemetryData.getGeneratorCurrentL2());
+        history.setGeneratorCurrentL3(telemetryData.getGeneratorCurrentL3());
+
+        history.setEarthFaultCurrent(telemetryData.getEarthFaultCurrent());
+        history.setMainsBusFrequency(telemetryData.getMainsBusFrequency());
+
+        // Mains/Bus Voltage (Line to Neutral)
+        history.setMainsBusVoltageL1N(telemetryData.getMainsBusVoltageL1N());
+        history.setMainsBusVoltageL2N(telemetryData.getMainsBusVoltageL2N());
+        history.setMainsBusVoltageL3N(telemetryData.getMainsBusVoltageL3N());
+
+        // Mains/Bus Voltage (Line to Line)
+        history.setMainsBusVoltageL1L2(telemetryData.getMainsBusVoltageL1L2());
+        history.setMainsBusVoltageL2L3(telemetryData.getMainsBusVoltageL2L3());
+        history.setMainsBusVoltageL3L1(telemetryData.getMainsBusVoltageL3L1());
+
+        history.setMainsL1Current(telemetryData.getMainsL1Current());
+        history.setMainsImportP(telemetryData.getMainsImportP());
+        history.setMainsImportQ(telemetryData.getMainsImportQ());
+        history.setMainsPF(telemetryData.getMainsPF());
+
+        // Vector Shift and ROCOF
+        history.setMaxVectorShift(telemetryData.getMaxVectorShift());
+        history.setRocof(telemetryData.getRocof());
+        history.setMaxRocof(telemetryData.getMaxRocof());
+
+        // Load
+        history.setLoadP(telemetryData.getLoadP());
+        history.setLoadQ(telemetryData.getLoadQ());
+        history.setLoadPF(telemetryData.getLoadPF());
+
+        // Battery and D+
+        history.setBatteryVolts(telemetryData.getBatteryVolts());
+        history.setDPlus(telemetryData.getDPlus());
+
+        // Oil
+        history.setOilPressure(telemetryData.getOilPressure());
+        history.setOilTemperature(telemetryData.getOilTemperature());
+
+        // Fuel Level
+        history.setFuelLevel(telemetryData.getFuelLevel());
+
+        // E-STOP
+        history.setEStop(telemetryData.getEStop());
+
+        // Alarm
+        history.setAlarm(telemetryData.getAlarm());
+
+        return history;
+    }
+}
@@ -0,0 +1,159 @@
+package com.generator.monitoring.service;
+
+import com.generator.monitoring.enums.PartitionInterval;
+import com.generator.monitoring.repository.TelemetryPartitionJdbcRepository;
+import com.generator.monitoring.repository.TelemetryPartitionJdbcRepository.Partition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Manages telemetry_history as time-range partitions (daily or weekly).
+ * Partitions are created ahead of time, and retention drops whole partitions instead of deleting rows.
+ * A fresh, empty telemetry_history is converted to a partitioned table on startup; an existing
+ * table with data has to be migrated once with V7__partition_telemetry_history.sql, until then
+ * retention keeps deleting rows.
+ */
+@Service
+public class TelemetryPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryPartitionService.class);
+    private static final DateTimeFormatter NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Autowired
+    private TelemetryPartitionJdbcRepository partitionJdbcRepository;
+
+    @Value("${telemetry.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${telemetry.partitioning.interval:DAILY}")
+    private PartitionInterval interval;
+
+    // How many days of partitions to keep created in advance
+    @Value("${telemetry.partitioning.precreate-days:7}")
+    private int precreateDays;
+
+    private volatile boolean partitioned;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            partitioned = partitionJdbcRepository.isPartitioned();
+            if (!partitioned) {
+                if (partitionJdbcRepository.hasRows()) {
+                    logger.warn("telemetry_history holds data and is not partitioned; run "
+                            + "V7__partition_telemetry_history.sql to migrate it. Retention keeps deleting rows until then.");
+                    return;
+                }
+                if (!partitionJdbcRepository.convertEmptyTableToPartitioned()) {
+                    logger.warn("telemetry_history received data while being converted; left unpartitioned. Run "
+                            + "V7__partition_telemetry_history.sql to migrate it.");
+                    return;
+                }
+                partitioned = true;
+                logger.info("Converted empty telemetry_history to a {} partitioned table", interval);
+            }
+            createUpcomingPartitions();
+        } catch (Exception e) {
+            logger.error("Error setting up telemetry partitions: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    /**
+     * Create the partitions up to precreate-days ahead, daily at 1 AM.
+     * Creation continues from the upper bound of the newest partition, so a range is never
+     * created twice and days missed while the application was down are filled in; their rows
+     * are moved out of the default partition. Each partition is created on its own, so one
+     * failure does not stop the others.
+     */
+    @Scheduled(cron = "0 0 1 * * ?")
+    public void createUpcomingPartitions() {
+        if (!partitioned) {
+            return;
+        }
+
+        try {
+            partitionJdbcRepository.createDefaultPartition();
+        } catch (Exception e) {
+            logger.error("Error creating the default telemetry partition: {}", e.getMessage(), e);
+        }
+
+        List<Partition> partitions;
+        try {
+            partitions = partitionJdbcRepository.findPartitions();
+        } catch (Exception e) {
+            logger.error("Error reading telemetry partitions: {}", e.getMessage(), e);
+            return;
+        }
+
+        LocalDateTime newestUpperBound = partitions.stream()
+                .map(Partition::upperBound)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+
+        LocalDateTime last = LocalDate.now().plusDays(precreateDays).atStartOfDay();
+        LocalDateTime from = newestUpperBound != null
+                ? newestUpperBound
+                : interval.startOf(LocalDate.now()).atStartOfDay();
+
+        while (!from.isAfter(last)) {
+            LocalDateTime to = interval.next(interval.startOf(from.toLocalDate())).atStartOfDay();
+            LocalDateTime rangeStart = from;
+            if (partitions.stream().noneMatch(partition -> partition.overlaps(rangeStart, to))) {
+                String name = partitionName(from.toLocalDate());
+                try {
+                    int moved = partitionJdbcRepository.createPartition(name, from, to);
+                    if (moved > 0) {
+                        logger.warn("Moved {} telemetry rows from the default partition into {}", moved, name);
+                    }
+                } catch (Exception e) {
+                    logger.error("Error creating telemetry partition {}: {}", name, e.getMessage(), e);
+                }
+            }
+            from = to;
+        }
+        logger.debug("Telemetry partitions exist up to {}", last);
+    }
+
+    /**
+     * Detach and drop every partition that lies completely before the cutoff.
+     * Returns the number of dropped partitions.
+     */
+    public int dropPartitionsBefore(LocalDateTime cutoff) {
+        int dropped = 0;
+        for (Partition partition : partitionJdbcRepository.findPartitions()) {
+            if (partition.upperBound() == null || partition.upperBound().isAfter(cutoff)) {
+                continue;
+            }
+            partitionJdbcRepository.dropPartition(partition.name());
+            logger.info("Dropped telemetry partition {} (data before {})", partition.name(), partition.upperBound());
+            dropped++;
+        }
+        return dropped;
+    }
+
+    private static String partitionName(LocalDate start) {
+        return TelemetryPartitionJdbcRepository.TABLE + "_p" + start.format(NAME_FORMATTER);
+    }
+}
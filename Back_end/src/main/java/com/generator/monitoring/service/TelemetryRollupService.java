@@ -0,0 +1,253 @@
+package com.generator.monitoring.service;
+
+import com.generator.monitoring.entity.TelemetryHistory;
+import com.generator.monitoring.enums.RollupResolution;
+import com.generator.monitoring.enums.TelemetryParameter;
+import com.generator.monitoring.repository.TelemetryRollupJdbcRepository;
+import com.generator.monitoring.repository.TelemetryRollupJdbcRepository.RollupRow;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the 1-minute, 15-minute and hourly rollup tables as telemetry is ingested.
+ * Rows are accumulated in memory per (resolution, device, bucket) and merged into the
+ * tables on a fixed interval, so a bucket is written a few times while it fills up
+ * instead of being recomputed from telemetry_history.
+ */
+@Service
+public class TelemetryRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryRollupService.class);
+
+    private static final List<TelemetryParameter> PARAMETERS = TelemetryParameter.numericValues();
+
+    @Autowired
+    private TelemetryRollupJdbcRepository rollupJdbcRepository;
+
+    @Value("${rollups.retention-days.1m:42}")
+    private int minuteRetentionDays;
+
+    @Value("${rollups.retention-days.15m:180}")
+    private int quarterHourRetentionDays;
+
+    @Value("${rollups.retention-days.1h:730}")
+    private int hourRetentionDays;
+
+    private final Map<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+
+    // Start of the oldest bucket per table; queries before it must read raw telemetry
+    private final Map<RollupResolution, LocalDateTime> coverageStart = new ConcurrentHashMap<>();
+
+    /**
+     * Add persisted telemetry rows to the in-memory buckets of every resolution
+     */
+    public void record(List<TelemetryHistory> rows) {
+        for (TelemetryHistory row : rows) {
+            long epochSecond = row.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+            for (RollupResolution resolution : RollupResolution.values()) {
+                long bucketStart = Math.floorDiv(epochSecond, resolution.getSeconds()) * resolution.getSeconds();
+                BucketKey key = new BucketKey(resolution, row.getDevice().getId(), bucketStart);
+
+                // A bucket closed by a concurrent flush is replaced by a fresh one
+                while (!buckets.computeIfAbsent(key, k -> new Bucket()).add(row, epochSecond)) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rollups.flush-interval-ms:10000}")
+    public void flush() {
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        Map<RollupResolution, List<RollupRow>> rowsByResolution = new EnumMap<>(RollupResolution.class);
+        Map<BucketKey, Bucket> flushed = new HashMap<>();
+
+        for (Map.Entry<BucketKey, Bucket> entry : buckets.entrySet()) {
+            BucketKey key = entry.getKey();
+            Bucket bucket = entry.getValue();
+            bucket.close();
+            buckets.remove(key, bucket);
+            flushed.put(key, bucket);
+            bucket.toRows(key, rowsByResolution.computeIfAbsent(key.resolution(), r -> new ArrayList<>()));
+        }
+
+        for (Map.Entry<RollupResolution, List<RollupRow>> entry : rowsByResolution.entrySet()) {
+            try {
+                rollupJdbcRepository.upsert(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                logger.error("Error writing {} rollup rows: {}", entry.getKey(), e.getMessage(), e);
+                // Put the buckets back so they are retried with the next flush
+                flushed.forEach((key, bucket) -> {
+                    if (key.resolution() == entry.getKey()) {
+                        buckets.merge(key, bucket.reopen(), Bucket::mergeFrom);
+                    }
+                });
+            }
+        }
+
+        logger.debug("Flushed {} rollup buckets", flushed.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Coarsest rollup table that can answer a query with the given bucket size,
+     * or null when the query has to read raw telemetry
+     */
+    public RollupResolution selectResolution(long bucketSeconds, LocalDateTime startTime) {
+        RollupResolution[] resolutions = RollupResolution.values();
+        for (int i = resolutions.length - 1; i >= 0; i--) {
+            RollupResolution resolution = resolutions[i];
+            if (bucketSeconds % resolution.getSeconds() != 0) {
+                continue;
+            }
+
+            LocalDateTime coverage = getCoverageStart(resolution);
+            if (coverage != null && !startTime.isBefore(coverage)) {
+                return resolution;
+            }
+        }
+        return null;
+    }
+
+    private LocalDateTime getCoverageStart(RollupResolution resolution) {
+        LocalDateTime coverage = coverageStart.get(resolution);
+        if (coverage == null) {
+            coverage = rollupJdbcRepository.findEarliestBucket(resolution);
+            if (coverage != null) {
+                coverageStart.put(resolution, coverage);
+            }
+        }
+        return coverage;
+    }
+
+    /**
+     * Delete rollup rows past their retention, daily at 2:30 AM after the raw telemetry cleanup
+     */
+    @Scheduled(cron = "0 30 2 * * ?")
+    public void cleanupExpiredRollups() {
+        cleanup(RollupResolution.ONE_MINUTE, minuteRetentionDays);
+        cleanup(RollupResolution.FIFTEEN_MINUTES, quarterHourRetentionDays);
+        cleanup(RollupResolution.ONE_HOUR, hourRetentionDays);
+    }
+
+    private void cleanup(RollupResolution resolution, int retentionDays) {
+        try {
+            int deleted = rollupJdbcRepository.deleteBefore(resolution, LocalDateTime.now().minusDays(retentionDays));
+            coverageStart.remove(resolution);
+            logger.info("Deleted {} {} rollup rows older than {} days", deleted, resolution, retentionDays);
+        } catch (Exception e) {
+            logger.error("Error cleaning up {} rollups: {}", resolution, e.getMessage(), e);
+        }
+    }
+
+    private record BucketKey(RollupResolution resolution, long devicePk, long bucketStart) {
+    }
+
+    /**
+     * Running min/max/sum/count/last of every numeric parameter within one bucket.
+     * Once closed by a flush it rejects further rows.
+     */
+    private static class Bucket {
+        private final double[] min = new double[PARAMETERS.size()];
+        private final double[] max = new double[PARAMETERS.size()];
+        private final double[] sum = new double[PARAMETERS.size()];
+        private final long[] count = new long[PARAMETERS.size()];
+        private final double[] last = new double[PARAMETERS.size()];
+        private final long[] lastEpochSecond = new long[PARAMETERS.size()];
+        private boolean closed;
+
+        synchronized boolean add(TelemetryHistory row, long epochSecond) {
+            if (closed) {
+                return false;
+            }
+
+            for (int i = 0; i < PARAMETERS.size(); i++) {
+                double value = PARAMETERS.get(i).getNumericValue(row);
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+
+                if (count[i] == 0) {
+                    min[i] = value;
+                    max[i] = value;
+                } else {
+                    min[i] = Math.min(min[i], value);
+                    max[i] = Math.max(max[i], value);
+                }
+                sum[i] += value;
+                count[i]++;
+
+                if (epochSecond >= lastEpochSecond[i]) {
+                    last[i] = value;
+                    lastEpochSecond[i] = epochSecond;
+                }
+            }
+            return true;
+        }
+
+        synchronized void close() {
+            closed = true;
+        }
+
+        synchronized Bucket reopen() {
+            closed = false;
+            return this;
+        }
+
+        synchronized Bucket mergeFrom(Bucket other) {
+            for (int i = 0; i < PARAMETERS.size(); i++) {
+                if (other.count[i] == 0) {
+                    continue;
+                }
+
+                if (count[i] == 0) {
+                    min[i] = other.min[i];
+                    max[i] = other.max[i];
+                } else {
+                    min[i] = Math.min(min[i], other.min[i]);
+                    max[i] = Math.max(max[i], other.max[i]);
+                }
+                sum[i] += other.sum[i];
+                count[i] += other.count[i];
+
+                if (other.lastEpochSecond[i] >= lastEpochSecond[i]) {
+                    last[i] = other.last[i];
+                    lastEpochSecond[i] = other.lastEpochSecond[i];
+                }
+            }
+            return this;
+        }
+
+        synchronized void toRows(BucketKey key, List<RollupRow> rows) {
+            LocalDateTime bucketStart = LocalDateTime.ofEpochSecond(key.bucketStart(), 0, ZoneOffset.UTC);
+            for (int i = 0; i < PARAMETERS.size(); i++) {
+                if (count[i] > 0) {
+                    rows.add(new RollupRow(key.devicePk(), PARAMETERS.get(i).getKey(), bucketStart,
+                            min[i], max[i], sum[i], count[i], last[i],
+                            LocalDateTime.ofEpochSecond(lastEpochSecond[i], 0, ZoneOffset.UTC)));
+                }
+            }
+        }
+    }
+}
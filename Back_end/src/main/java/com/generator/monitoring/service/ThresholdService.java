@@ -5,14 +5,21 @@ import com.generator.monitoring.dto.TelemetryData;
 import com.generator.monitoring.dto.ThresholdDto;
 import com.generator.monitoring.entity.Device;
 import com.generator.monitoring.entity.DeviceThreshold;
+import com.generator.monitoring.enums.TelemetryParameter;
 import com.generator.monitoring.enums.ThresholdParameter;
 import com.generator.monitoring.repository.DeviceThresholdRepository;
+import com.generator.monitoring.util.TransactionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
 
 @Service
 public class ThresholdService {
@@ -20,173 +27,306 @@ public class ThresholdService {
     @Autowired
     private DeviceThresholdRepository thresholdRepository;
 
-    public List<AlarmData> evaluateThresholds(Device device, TelemetryData telemetry) {
-        List<AlarmData> alarms = new ArrayList<>();
-        List<DeviceThreshold> thresholds = thresholdRepository.findByDevice(device);
-
-        for (DeviceThreshold threshold : thresholds) {
-            // For grouped parameters, check all related values
-            List<ValueWithLabel> values = getValuesForParameter(telemetry, threshold.getParameter());
-
-            for (ValueWithLabel valueWithLabel : values) {
-                Double value = valueWithLabel.value;
-                String label = valueWithLabel.label;
-
-                if (value != null) {
-                    if (value < threshold.getMinValue()) {
-                        alarms.add(createAlarm(
-                                device.getDeviceId(),
-                                threshold.getParameter().name(),
-                                String.format("%s %s is below minimum threshold (%.2f %s)",
-                                        threshold.getParameter().getDisplayName(),
-                                        label,
-                                        threshold.getMinValue(),
-                                        threshold.getUnit()),
-                                "WARNING",
-                                value
-                        ));
-                    } else if (value > threshold.getMaxValue()) {
-                        alarms.add(createAlarm(
-                                device.getDeviceId(),
-                                threshold.getParameter().name(),
-                                String.format("%s %s is above maximum threshold (%.2f %s)",
-                                        threshold.getParameter().getDisplayName(),
-                                        label,
-                                        threshold.getMaxValue(),
-                                        threshold.getUnit()),
-                                "CRITICAL",
-                                value
-                        ));
-                    }
-                }
+    @Autowired
+    private AlarmStateTracker alarmStateTracker;
+
+    // Compiled rule sets per device primary key, rebuilt lazily after threshold changes
+    private final Map<Long, CompiledThresholds> compiledThresholds = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation; a compiled rule set is only cached if the generation it was read at is current
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+
+    /**
+     * Evaluate a telemetry sample against the device thresholds.
+     * Only alarm transitions are returned: RAISED when a value leaves its limits (or jumps
+     * from one limit to the other) and CLEARED when it is back inside them.
+     * Returns an empty list without allocating while nothing changes.
+     * Hold times are measured on the sample time (sampledAtMillis, as set by the decode stage),
+     * so replayed samples behave as they did live.
+     */
+    public List<AlarmData> evaluateThresholds(Device device, TelemetryData telemetry, long sampledAtMillis) {
+        CompiledThresholds rules = getCompiledThresholds(device);
+        AlarmStateTracker.DeviceAlarmState state = alarmStateTracker.getState(device.getDeviceId(), PROBE_COUNT);
+        List<AlarmData> alarms = null;
+
+        for (int i = 0; i < rules.size; i++) {
+            double value = rules.accessors[i].applyAsDouble(telemetry);
+
+            // NaN means the value is missing from this sample
+            if (Double.isNaN(value)) {
+                continue;
             }
-        }
-
-        return alarms;
-    }
-
-    // Helper class to hold value with its label
-    private static class ValueWithLabel {
-        Double value;
-        String label;
-
-        ValueWithLabel(Double value, String label) {
-            this.value = value;
-            this.label = label;
-        }
-    }
 
-    private List<ValueWithLabel> getValuesForParameter(TelemetryData telemetry, ThresholdParameter parameter) {
-        List<ValueWithLabel> values = new ArrayList<>();
-
-        switch (parameter) {
-            case RPM -> values.add(new ValueWithLabel(telemetry.getRpm(), ""));
-
-            case GENERATOR_FREQUENCY -> values.add(new ValueWithLabel(telemetry.getGeneratorFrequency(), ""));
-
-            case MAINS_BUS_FREQUENCY -> values.add(new ValueWithLabel(telemetry.getMainsBusFrequency(), ""));
-
-            case GENERATOR_VOLTAGE_LN -> {
-                values.add(new ValueWithLabel(telemetry.getGeneratorVoltageL1N(), "L1-N"));
-                values.add(new ValueWithLabel(telemetry.getGeneratorVoltageL2N(), "L2-N"));
-                values.add(new ValueWithLabel(telemetry.getGeneratorVoltageL3N(), "L3-N"));
+            int key = rules.keys[i];
+            int transition = alarmStateTracker.update(state, key, value, rules.minValues[i], rules.maxValues[i],
+                    sampledAtMillis);
+            if (transition < 0) {
+                continue;
             }
 
-            case GENERATOR_VOLTAGE_LL -> {
-                values.add(new ValueWithLabel(telemetry.getGeneratorVoltageL1L2(), "L1-L2"));
-                values.add(new ValueWithLabel(telemetry.getGeneratorVoltageL2L3(), "L2-L3"));
-                values.add(new ValueWithLabel(telemetry.getGeneratorVoltageL3L1(), "L3-L1"));
+            AlarmData alarm;
+            if (transition == AlarmStateTracker.BELOW_MIN) {
+                alarm = createAlarm(device.getDeviceId(), telemetry.getTimestamp(), rules, i,
+                        String.format("%s %s is below minimum threshold (%.2f %s)",
+                                rules.parameters[i].getDisplayName(),
+                                rules.labels[i],
+                                rules.minValues[i],
+                                rules.units[i]),
+                        "WARNING", value, AlarmStateTracker.RAISED);
+                state.setActive(key, alarm);
+            } else if (transition == AlarmStateTracker.ABOVE_MAX) {
+                alarm = createAlarm(device.getDeviceId(), telemetry.getTimestamp(), rules, i,
+                        String.format("%s %s is above maximum threshold (%.2f %s)",
+                                rules.parameters[i].getDisplayName(),
+                                rules.labels[i],
+                                rules.maxValues[i],
+                                rules.units[i]),
+                        "CRITICAL", value, AlarmStateTracker.RAISED);
+                state.setActive(key, alarm);
+            } else {
+                AlarmData raised = state.getActive(key);
+                alarm = createAlarm(device.getDeviceId(), telemetry.getTimestamp(), rules, i,
+                        String.format("%s %s is back within thresholds (%.2f - %.2f %s)",
+                                rules.parameters[i].getDisplayName(),
+                                rules.labels[i],
+                                rules.minValues[i],
+                                rules.maxValues[i],
+                                rules.units[i]),
+                        raised != null ? raised.getSeverity() : "WARNING", value, AlarmStateTracker.CLEARED);
+                state.setActive(key, null);
             }
 
-            case MAINS_BUS_VOLTAGE_LN -> {
-                values.add(new ValueWithLabel(telemetry.getMainsBusVoltageL1N(), "L1-N"));
-                values.add(new ValueWithLabel(telemetry.getMainsBusVoltageL2N(), "L2-N"));
-                values.add(new ValueWithLabel(telemetry.getMainsBusVoltageL3N(), "L3-N"));
+            if (alarms == null) {
+                alarms = new ArrayList<>();
             }
+            alarms.add(alarm);
+        }
 
-            case MAINS_BUS_VOLTAGE_LL -> {
-                values.add(new ValueWithLabel(telemetry.getMainsBusVoltageL1L2(), "L1-L2"));
-                values.add(new ValueWithLabel(telemetry.getMainsBusVoltageL2L3(), "L2-L3"));
-                values.add(new ValueWithLabel(telemetry.getMainsBusVoltageL3L1(), "L3-L1"));
-            }
+        return alarms != null ? alarms : Collections.emptyList();
+    }
 
-            case GENERATOR_CURRENT -> {
-                values.add(new ValueWithLabel(telemetry.getGeneratorCurrentL1(), "L1"));
-                values.add(new ValueWithLabel(telemetry.getGeneratorCurrentL2(), "L2"));
-                values.add(new ValueWithLabel(telemetry.getGeneratorCurrentL3(), "L3"));
-            }
+    /**
+     * Alarms of a device that are currently raised
+     */
+    public List<AlarmData> getActiveAlarms(String deviceId) {
+        return alarmStateTracker.getActiveAlarms(deviceId);
+    }
 
-            case REAL_POWER -> {
-                // Calculate average of L1, L2, L3 for Generator P
-                Double genP = calculateAverage(
-                    telemetry.getGeneratorPL1(),
-                    telemetry.getGeneratorPL2(),
-                    telemetry.getGeneratorPL3()
-                );
-                values.add(new ValueWithLabel(genP, "(Generator)"));
-                values.add(new ValueWithLabel(telemetry.getLoadP(), "(Load)"));
+    /**
+     * Threshold limits {min, max} of the telemetry parameters that are checked directly,
+     * leaving out derived values such as the averaged generator power
+     */
+    public Map<TelemetryParameter, double[]> getParameterLimits(Device device) {
+        CompiledThresholds rules = getCompiledThresholds(device);
+        Map<TelemetryParameter, double[]> limits = new EnumMap<>(TelemetryParameter.class);
+        for (int i = 0; i < rules.size; i++) {
+            if (rules.sources[i] != null) {
+                limits.put(rules.sources[i], new double[]{rules.minValues[i], rules.maxValues[i]});
             }
+        }
+        return limits;
+    }
 
-            case REACTIVE_POWER -> {
-                // Use total Generator Q
-                values.add(new ValueWithLabel(telemetry.getGeneratorQ(), "(Generator)"));
-                values.add(new ValueWithLabel(telemetry.getLoadQ(), "(Load)"));
-            }
+    private CompiledThresholds getCompiledThresholds(Device device) {
+        Long deviceId = device.getId();
+        CompiledThresholds rules = compiledThresholds.get(deviceId);
+        if (rules == null) {
+            long generation = generations.getOrDefault(deviceId, 0L);
+            CompiledThresholds compiled = compile(thresholdRepository.findByDevice(device));
+            // A change committed while we were reading may not be in what we read, so don't cache it then
+            generations.compute(deviceId, (id, current) -> {
+                if ((current != null ? current : 0L) == generation) {
+                    compiledThresholds.put(id, compiled);
+                }
+                return current;
+            });
+            rules = compiled;
+        }
+        return rules;
+    }
 
-            case POWER_FACTOR -> {
-                values.add(new ValueWithLabel(telemetry.getGeneratorPowerFactor(), "(Generator)"));
-                values.add(new ValueWithLabel(telemetry.getMainsPF(), "(Mains)"));
-                values.add(new ValueWithLabel(telemetry.getLoadPF(), "(Load)"));
-            }
+    /**
+     * Drop the compiled rules of a device once the current transaction commits
+     */
+    private void invalidate(Device device) {
+        Long deviceId = device.getId();
+        TransactionUtils.afterCommit(() -> generations.compute(deviceId, (id, current) -> {
+            compiledThresholds.remove(id);
+            return current != null ? current + 1 : 1L;
+        }));
+    }
+
+    /**
+     * Forget the compiled rules of a deleted device once the current transaction commits
+     */
+    public void remove(Device device) {
+        Long deviceId = device.getId();
+        TransactionUtils.afterCommit(() -> generations.compute(deviceId, (id, current) -> {
+            compiledThresholds.remove(id);
+            return null;
+        }));
+    }
 
-            case EARTH_FAULT_CURRENT -> values.add(new ValueWithLabel(telemetry.getEarthFaultCurrent(), ""));
+    /**
+     * Flatten the thresholds into parallel arrays with one entry per checked value,
+     * e.g. GENERATOR_VOLTAGE_LN becomes three rules for L1-N, L2-N and L3-N
+     */
+    private CompiledThresholds compile(List<DeviceThreshold> thresholds) {
+        int size = 0;
+        for (DeviceThreshold threshold : thresholds) {
+            size += PROBES.get(threshold.getParameter()).length;
+        }
 
-            case ROCOF -> {
-                values.add(new ValueWithLabel(telemetry.getRocof(), ""));
-                values.add(new ValueWithLabel(telemetry.getMaxRocof(), "(Max)"));
+        CompiledThresholds rules = new CompiledThresholds(size);
+        int i = 0;
+        for (DeviceThreshold threshold : thresholds) {
+            for (Probe probe : PROBES.get(threshold.getParameter())) {
+                rules.parameters[i] = threshold.getParameter();
+                rules.keys[i] = probe.key;
+                rules.labels[i] = probe.label;
+                rules.units[i] = threshold.getUnit();
+                rules.accessors[i] = probe.accessor;
+                rules.sources[i] = probe.source;
+                rules.minValues[i] = threshold.getMinValue();
+                rules.maxValues[i] = threshold.getMaxValue();
+                i++;
             }
+        }
+        return rules;
+    }
 
-            case OIL_PRESSURE -> values.add(new ValueWithLabel(telemetry.getOilPressure(), ""));
-
-            case OIL_TEMPERATURE -> values.add(new ValueWithLabel(telemetry.getOilTemperature(), ""));
+    // Thresholds of one device as parallel arrays, index i describes one checked value
+    private static class CompiledThresholds {
+        final int size;
+        final int[] keys;
+        final ThresholdParameter[] parameters;
+        final String[] labels;
+        final String[] units;
+        final ToDoubleFunction<TelemetryData>[] accessors;
+        final TelemetryParameter[] sources;
+        final double[] minValues;
+        final double[] maxValues;
+
+        @SuppressWarnings("unchecked")
+        CompiledThresholds(int size) {
+            this.size = size;
+            this.keys = new int[size];
+            this.parameters = new ThresholdParameter[size];
+            this.labels = new String[size];
+            this.units = new String[size];
+            this.accessors = new ToDoubleFunction[size];
+            this.sources = new TelemetryParameter[size];
+            this.minValues = new double[size];
+            this.maxValues = new double[size];
+        }
+    }
 
-            case FUEL_LEVEL -> values.add(new ValueWithLabel(telemetry.getFuelLevel(), ""));
+    // A labelled value read from telemetry, NaN when missing.
+    // The key is stable across recompiles and indexes the alarm state of the value.
+    // The source is the telemetry parameter read as-is, null for derived values.
+    private record Probe(int key, String label, ToDoubleFunction<TelemetryData> accessor, TelemetryParameter source) {
+        private static int nextKey;
 
-            case BATTERY_VOLTAGE -> {
-                values.add(new ValueWithLabel(telemetry.getBatteryVolts(), "(Battery)"));
-                values.add(new ValueWithLabel(telemetry.getDPlus(), "(D+)"));
-            }
+        Probe(String label, ToDoubleFunction<TelemetryData> accessor) {
+            this(nextKey++, label, accessor, null);
+        }
 
-            case E_STOP -> {
-                // E-STOP is boolean, convert to 0 or 1 for threshold checking
-                Double estopValue = telemetry.getEStop() != null && telemetry.getEStop() ? 1.0 : 0.0;
-                values.add(new ValueWithLabel(estopValue, ""));
-            }
+        Probe(String label, TelemetryParameter parameter) {
+            this(nextKey++, label, parameter::getNumericValue, parameter);
         }
+    }
 
-        return values;
+    private static final Map<ThresholdParameter, Probe[]> PROBES = new EnumMap<>(ThresholdParameter.class);
+
+    static {
+        PROBES.put(ThresholdParameter.RPM, new Probe[]{
+                new Probe("", TelemetryParameter.RPM)});
+        PROBES.put(ThresholdParameter.GENERATOR_FREQUENCY, new Probe[]{
+                new Probe("", TelemetryParameter.GENERATOR_FREQUENCY)});
+        PROBES.put(ThresholdParameter.MAINS_BUS_FREQUENCY, new Probe[]{
+                new Probe("", TelemetryParameter.MAINS_BUS_FREQUENCY)});
+        PROBES.put(ThresholdParameter.GENERATOR_VOLTAGE_LN, new Probe[]{
+                new Probe("L1-N", TelemetryParameter.GENERATOR_VOLTAGE_L1_N),
+                new Probe("L2-N", TelemetryParameter.GENERATOR_VOLTAGE_L2_N),
+                new Probe("L3-N", TelemetryParameter.GENERATOR_VOLTAGE_L3_N)});
+        PROBES.put(ThresholdParameter.GENERATOR_VOLTAGE_LL, new Probe[]{
+                new Probe("L1-L2", TelemetryParameter.GENERATOR_VOLTAGE_L1_L2),
+                new Probe("L2-L3", TelemetryParameter.GENERATOR_VOLTAGE_L2_L3),
+                new Probe("L3-L1", TelemetryParameter.GENERATOR_VOLTAGE_L3_L1)});
+        PROBES.put(ThresholdParameter.MAINS_BUS_VOLTAGE_LN, new Probe[]{
+                new Probe("L1-N", TelemetryParameter.MAINS_BUS_VOLTAGE_L1_N),
+                new Probe("L2-N", TelemetryParameter.MAINS_BUS_VOLTAGE_L2_N),
+                new Probe("L3-N", TelemetryParameter.MAINS_BUS_VOLTAGE_L3_N)});
+        PROBES.put(ThresholdParameter.MAINS_BUS_VOLTAGE_LL, new Probe[]{
+                new Probe("L1-L2", TelemetryParameter.MAINS_BUS_VOLTAGE_L1_L2),
+                new Probe("L2-L3", TelemetryParameter.MAINS_BUS_VOLTAGE_L2_L3),
+                new Probe("L3-L1", TelemetryParameter.MAINS_BUS_VOLTAGE_L3_L1)});
+        PROBES.put(ThresholdParameter.GENERATOR_CURRENT, new Probe[]{
+                new Probe("L1", TelemetryParameter.GENERATOR_CURRENT_L1),
+                new Probe("L2", TelemetryParameter.GENERATOR_CURRENT_L2),
+                new Probe("L3", TelemetryParameter.GENERATOR_CURRENT_L3)});
+        // Generator P is the average of L1, L2 and L3
+        PROBES.put(ThresholdParameter.REAL_POWER, new Probe[]{
+                new Probe("(Generator)", t -> average(t.getGeneratorPL1(), t.getGeneratorPL2(), t.getGeneratorPL3())),
+                new Probe("(Load)", TelemetryParameter.LOAD_P)});
+        // Use total Generator Q
+        PROBES.put(ThresholdParameter.REACTIVE_POWER, new Probe[]{
+                new Probe("(Generator)", TelemetryParameter.GENERATOR_Q),
+                new Probe("(Load)", TelemetryParameter.LOAD_Q)});
+        PROBES.put(ThresholdParameter.POWER_FACTOR, new Probe[]{
+                new Probe("(Generator)", TelemetryParameter.GENERATOR_POWER_FACTOR),
+                new Probe("(Mains)", TelemetryParameter.MAINS_PF),
+                new Probe("(Load)", TelemetryParameter.LOAD_PF)});
+        PROBES.put(ThresholdParameter.EARTH_FAULT_CURRENT, new Probe[]{
+                new Probe("", TelemetryParameter.EARTH_FAULT_CURRENT)});
+        PROBES.put(ThresholdParameter.ROCOF, new Probe[]{
+                new Probe("", TelemetryParameter.ROCOF),
+                new Probe("(Max)", TelemetryParameter.MAX_ROCOF)});
+        PROBES.put(ThresholdParameter.OIL_PRESSURE, new Probe[]{
+                new Probe("", TelemetryParameter.OIL_PRESSURE)});
+        PROBES.put(ThresholdParameter.OIL_TEMPERATURE, new Probe[]{
+                new Probe("", TelemetryParameter.OIL_TEMPERATURE)});
+        PROBES.put(ThresholdParameter.FUEL_LEVEL, new Probe[]{
+                new Probe("", TelemetryParameter.FUEL_LEVEL)});
+        PROBES.put(ThresholdParameter.BATTERY_VOLTAGE, new Probe[]{
+                new Probe("(Battery)", TelemetryParameter.BATTERY_VOLTS),
+                new Probe("(D+)", TelemetryParameter.D_PLUS)});
+        // E-STOP is boolean, convert to 0 or 1 for threshold checking
+        PROBES.put(ThresholdParameter.E_STOP, new Probe[]{
+                new Probe("", t -> Boolean.TRUE.equals(t.getEStop()) ? 1.0 : 0.0)});
     }
 
-    private Double calculateAverage(Double... values) {
+    private static final int PROBE_COUNT = Probe.nextKey;
+
+    private static double average(Double a, Double b, Double c) {
         double sum = 0;
         int count = 0;
-        for (Double value : values) {
-            if (value != null) {
-                sum += value;
-                count++;
-            }
+        if (a != null) {
+            sum += a;
+            count++;
         }
-        return count > 0 ? sum / count : null;
+        if (b != null) {
+            sum += b;
+            count++;
+        }
+        if (c != null) {
+            sum += c;
+            count++;
+        }
+        return count > 0 ? sum / count : Double.NaN;
     }
 
-    private AlarmData createAlarm(String deviceId, String parameter, String message, String severity, Double value) {
+    private AlarmData createAlarm(String deviceId, LocalDateTime timestamp, CompiledThresholds rules, int index,
+                                  String message, String severity, Double value, String state) {
         return new AlarmData(
                 deviceId,
-                parameter,
+                rules.parameters[index].name(),
                 message,
                 severity,
                 value,
-                LocalDateTime.now()
+                timestamp,
+                rules.labels[index],
+                state
         );
     }
 
@@ -208,6 +348,7 @@ public class ThresholdService {
         threshold.setUnit(parameter.getUnit());
 
         DeviceThreshold saved = thresholdRepository.save(threshold);
+        invalidate(device);
         return mapToDto(saved);
     }
 
@@ -299,6 +440,8 @@ public class ThresholdService {
                 thresholdRepository.save(threshold);
             }
         }
+
+        invalidate(device);
     }
 
     private ThresholdDto mapToDto(DeviceThreshold threshold) {
@@ -0,0 +1,20 @@
+-- Create alarm_events table (append-only alarm transitions)
+CREATE TABLE IF NOT EXISTS alarm_events (
+    id BIGSERIAL PRIMARY KEY,
+    device_id BIGINT NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    source VARCHAR(16) NOT NULL,
+    parameter VARCHAR(64) NOT NULL,
+    label VARCHAR(32),
+    severity VARCHAR(16) NOT NULL,
+    state VARCHAR(16) NOT NULL,
+    message VARCHAR(1000),
+    value DOUBLE PRECISION,
+    CONSTRAINT fk_alarm_device FOREIGN KEY (device_id) REFERENCES devices(id) ON DELETE CASCADE
+);
+
+-- Indexes for device, severity, parameter and time range filters
+CREATE INDEX IF NOT EXISTS idx_alarm_device_timestamp ON alarm_events(device_id, timestamp);
+CREATE INDEX IF NOT EXISTS idx_alarm_severity_timestamp ON alarm_events(severity, timestamp);
+CREATE INDEX IF NOT EXISTS idx_alarm_parameter_timestamp ON alarm_events(parameter, timestamp);
+CREATE INDEX IF NOT EXISTS idx_alarm_timestamp ON alarm_events(timestamp);
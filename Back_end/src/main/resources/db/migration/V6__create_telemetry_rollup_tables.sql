@@ -0,0 +1,49 @@
+-- Create telemetry rollup tables (1-minute, 15-minute and hourly aggregates per parameter)
+
+CREATE TABLE IF NOT EXISTS telemetry_rollup_1m (
+    device_id BIGINT NOT NULL,
+    parameter VARCHAR(32) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    min_value DOUBLE PRECISION,
+    max_value DOUBLE PRECISION,
+    sum_value DOUBLE PRECISION,
+    count_value BIGINT,
+    last_value DOUBLE PRECISION,
+    last_timestamp TIMESTAMP,
+    PRIMARY KEY (device_id, parameter, bucket_start),
+    CONSTRAINT fk_rollup_1m_device FOREIGN KEY (device_id) REFERENCES devices(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_rollup_1m_bucket_start ON telemetry_rollup_1m(bucket_start);
+
+CREATE TABLE IF NOT EXISTS telemetry_rollup_15m (
+    device_id BIGINT NOT NULL,
+    parameter VARCHAR(32) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    min_value DOUBLE PRECISION,
+    max_value DOUBLE PRECISION,
+    sum_value DOUBLE PRECISION,
+    count_value BIGINT,
+    last_value DOUBLE PRECISION,
+    last_timestamp TIMESTAMP,
+    PRIMARY KEY (device_id, parameter, bucket_start),
+    CONSTRAINT fk_rollup_15m_device FOREIGN KEY (device_id) REFERENCES devices(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_rollup_15m_bucket_start ON telemetry_rollup_15m(bucket_start);
+
+CREATE TABLE IF NOT EXISTS telemetry_rollup_1h (
+    device_id BIGINT NOT NULL,
+    parameter VARCHAR(32) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    min_value DOUBLE PRECISION,
+    max_value DOUBLE PRECISION,
+    sum_value DOUBLE PRECISION,
+    count_value BIGINT,
+    last_value DOUBLE PRECISION,
+    last_timestamp TIMESTAMP,
+    PRIMARY KEY (device_id, parameter, bucket_start),
+    CONSTRAINT fk_rollup_1h_device FOREIGN KEY (device_id) REFERENCES devices(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_rollup_1h_bucket_start ON telemetry_rollup_1h(bucket_start);
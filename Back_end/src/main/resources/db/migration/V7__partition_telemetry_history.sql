@@ -0,0 +1,38 @@
+-- Convert telemetry_history to a table partitioned by time range.
+-- The application creates daily partitions ahead of time and drops expired ones
+-- (see TelemetryPartitionService). An empty table is converted automatically on startup;
+-- run this script once, during a maintenance window, for a table that already holds data.
+-- The existing rows become one legacy partition that is dropped once it has fully expired.
+
+BEGIN;
+
+LOCK TABLE telemetry_history IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE telemetry_history RENAME TO telemetry_history_legacy;
+ALTER INDEX IF EXISTS idx_device_timestamp RENAME TO idx_legacy_device_timestamp;
+ALTER INDEX IF EXISTS idx_timestamp RENAME TO idx_legacy_timestamp;
+
+CREATE TABLE telemetry_history (LIKE telemetry_history_legacy INCLUDING DEFAULTS)
+    PARTITION BY RANGE (timestamp);
+
+-- Ids continue from the legacy identity sequence
+CREATE SEQUENCE telemetry_history_id_seq_p OWNED BY telemetry_history.id;
+SELECT setval('telemetry_history_id_seq_p', COALESCE((SELECT MAX(id) FROM telemetry_history_legacy), 0) + 1, false);
+ALTER TABLE telemetry_history ALTER COLUMN id SET DEFAULT nextval('telemetry_history_id_seq_p');
+
+ALTER TABLE telemetry_history ADD PRIMARY KEY (id, timestamp);
+ALTER TABLE telemetry_history ADD CONSTRAINT fk_telemetry_history_device
+    FOREIGN KEY (device_id) REFERENCES devices(id);
+CREATE INDEX idx_device_timestamp ON telemetry_history (device_id, timestamp);
+CREATE INDEX idx_timestamp ON telemetry_history (timestamp);
+
+-- The primary key of a partition must match the parent's
+ALTER TABLE telemetry_history_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE telemetry_history_legacy DROP CONSTRAINT telemetry_history_pkey;
+ALTER TABLE telemetry_history_legacy ADD PRIMARY KEY (id, timestamp);
+
+-- Legacy rows end where the first daily partition begins
+ALTER TABLE telemetry_history ATTACH PARTITION telemetry_history_legacy
+    FOR VALUES FROM (MINVALUE) TO (date_trunc('day', now() + interval '1 day'));
+
+COMMIT;
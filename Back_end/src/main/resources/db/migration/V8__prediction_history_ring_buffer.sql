@@ -0,0 +1,22 @@
+-- Fuel and battery prediction history become fixed-size ring buffers: every device has
+-- 10 slots per table, overwritten in place by PredictionHistoryJdbcRepository.
+-- Rows written before the change have no slot; they are removed here.
+-- Safe to run more than once, and after the new build has started: Hibernate creates the
+-- slot column and the unique constraints under the same names, so they are only added when missing.
+
+ALTER TABLE fuel_prediction_history ADD COLUMN IF NOT EXISTS slot INTEGER;
+DELETE FROM fuel_prediction_history WHERE slot IS NULL;
+
+ALTER TABLE battery_prediction_history ADD COLUMN IF NOT EXISTS slot INTEGER;
+DELETE FROM battery_prediction_history WHERE slot IS NULL;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_fuel_device_slot') THEN
+        ALTER TABLE fuel_prediction_history ADD CONSTRAINT uk_fuel_device_slot UNIQUE (device_id, slot);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_battery_device_slot') THEN
+        ALTER TABLE battery_prediction_history ADD CONSTRAINT uk_battery_device_slot UNIQUE (device_id, slot);
+    END IF;
+END
+$$;
@@ -0,0 +1,55 @@
+package com.generator.monitoring.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.generator.monitoring.enums.TelemetryParameter;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryColumnTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void serializesAsArrayWithNulls() throws Exception {
+        HistoryColumn numbers = HistoryColumn.forValueType(TelemetryParameter.ValueType.NUMBER);
+        numbers.add(1.5);
+        numbers.add(null);
+        numbers.add(-2.0);
+
+        HistoryColumn counts = HistoryColumn.ofLongs(1);
+        counts.add(3L);
+        counts.add(null);
+        counts.add(7L);
+
+        HistoryColumn text = HistoryColumn.forValueType(TelemetryParameter.ValueType.TEXT);
+        text.add("LOW FUEL");
+        text.add(null);
+        text.add(null);
+
+        Map<String, HistoryColumn> columns = new LinkedHashMap<>();
+        columns.put("fuelLevel", numbers);
+        columns.put("count", counts);
+        columns.put("alarm", text);
+        ColumnarHistory history = new ColumnarHistory(3, false, new long[]{1, 2, 3}, columns);
+
+        assertThat(objectMapper.writeValueAsString(history)).isEqualTo("{\"rowCount\":3,\"delta\":false,"
+                + "\"timestamps\":[1,2,3],\"columns\":{\"fuelLevel\":[1.5,null,-2.0],\"count\":[3,null,7],"
+                + "\"alarm\":[\"LOW FUEL\",null,null]}}");
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        HistoryColumn column = HistoryColumn.ofDoubles(1);
+        for (int row = 0; row < 3000; row++) {
+            column.add(row % 3 == 0 ? null : (double) row);
+        }
+
+        assertThat(column.size()).isEqualTo(3000);
+        assertThat(column.get(2999)).isEqualTo(2999.0);
+        assertThat(column.get(2997)).isNull();
+    }
+}
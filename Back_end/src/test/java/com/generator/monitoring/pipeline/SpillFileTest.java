@@ -0,0 +1,75 @@
+package com.generator.monitoring.pipeline;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpillFileTest {
+
+    private static final LocalDateTime RECEIVED = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysInSpillOrderAndKeepsDevicePendingUntilReplayed() {
+        SpillFile spillFile = new SpillFile(directory);
+        IngestMessage first = message("GEN-001", "a");
+
+        assertThat(spillFile.appendIfPending(first)).isFalse();
+        spillFile.append(first);
+        assertThat(spillFile.appendIfPending(message("GEN-001", "b"))).isTrue();
+        assertThat(spillFile.appendIfPending(message("GEN-002", "c"))).isFalse();
+
+        List<String> replayed = new ArrayList<>();
+        assertThat(spillFile.replay(m -> replayed.add(new String(m.getPayload(), StandardCharsets.UTF_8))))
+                .isEqualTo(2);
+
+        assertThat(replayed).containsExactly("a", "b");
+        assertThat(spillFile.hasPending()).isFalse();
+        assertThat(spillFile.appendIfPending(message("GEN-001", "d"))).isFalse();
+    }
+
+    @Test
+    void skipsUnreadableLinesAndDiscardsTruncatedFile() throws IOException {
+        String valid = line("GEN-001", RECEIVED.toString(), "a");
+        Files.writeString(directory.resolve("ingest-spill.log"), valid
+                + "GEN-001\tnot-a-time\t" + encode("b") + "\n"
+                + line("GEN-001", RECEIVED.plusSeconds(1).toString(), "c")
+                // Cut short by a crash in the middle of the Base64 payload
+                + "GEN-001\t" + RECEIVED.plusSeconds(2) + "\tQUJDR", StandardCharsets.UTF_8);
+
+        SpillFile spillFile = new SpillFile(directory);
+        assertThat(spillFile.appendIfPending(message("GEN-001", "x"))).isTrue();
+
+        List<String> replayed = new ArrayList<>();
+        spillFile.replay(m -> replayed.add(new String(m.getPayload(), StandardCharsets.UTF_8)));
+
+        assertThat(replayed).containsExactly("a", "c", "x");
+        assertThat(spillFile.hasPending()).isFalse();
+        assertThat(spillFile.replay(m -> replayed.add("again"))).isZero();
+        assertThat(spillFile.appendIfPending(message("GEN-001", "y"))).isFalse();
+    }
+
+    private static IngestMessage message(String deviceId, String payload) {
+        return new IngestMessage(deviceId, payload.getBytes(StandardCharsets.UTF_8), RECEIVED);
+    }
+
+    private static String line(String deviceId, String receivedAt, String payload) {
+        return deviceId + "\t" + receivedAt + "\t" + encode(payload) + "\n";
+    }
+
+    private static String encode(String payload) {
+        return Base64.getEncoder().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
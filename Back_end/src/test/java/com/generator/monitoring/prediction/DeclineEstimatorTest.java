@@ -0,0 +1,63 @@
+package com.generator.monitoring.prediction;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DeclineEstimatorTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void followsSteadyDecline() {
+        DeclineEstimator estimator = new DeclineEstimator(2, 0.25);
+        for (int minute = 0; minute <= 60; minute++) {
+            estimator.update(START.plusMinutes(minute), 80 - 6 * minute / 60.0);
+        }
+
+        assertThat(estimator.isReady()).isTrue();
+        assertThat(estimator.getDeclineRate()).isCloseTo(6, within(1e-6));
+        assertThat(estimator.predict(START.plusMinutes(120))).isCloseTo(68, within(1e-6));
+    }
+
+    @Test
+    void notReadyBeforeMinimumSpan() {
+        DeclineEstimator estimator = new DeclineEstimator(2, 0.25);
+        for (int minute = 0; minute < 10; minute++) {
+            estimator.update(START.plusMinutes(minute), 80 - minute * 0.1);
+        }
+
+        assertThat(estimator.isReady()).isFalse();
+        assertThat(estimator.getDeclineRate()).isNull();
+        assertThat(estimator.predict(START.plusMinutes(30))).isEqualTo(estimator.getLastValue());
+    }
+
+    @Test
+    void ignoresOlderSamples() {
+        DeclineEstimator estimator = new DeclineEstimator(2, 0.25);
+        estimator.update(START.plusMinutes(10), 50);
+        estimator.update(START, 90);
+        estimator.update(START.plusMinutes(10), 40);
+
+        assertThat(estimator.getSamples()).isEqualTo(1);
+        assertThat(estimator.getLastValue()).isEqualTo(50);
+        assertThat(estimator.getLastTimestamp()).isEqualTo(START.plusMinutes(10));
+    }
+
+    @Test
+    void restoresSnapshot() {
+        DeclineEstimator estimator = new DeclineEstimator(2, 0.25);
+        for (int minute = 0; minute <= 30; minute++) {
+            estimator.update(START.plusMinutes(minute), 50 - minute * 0.1);
+        }
+
+        DeclineEstimator restored = new DeclineEstimator(2, 0.25);
+        restored.restore(estimator.snapshot());
+
+        assertThat(restored.getDeclineRate()).isEqualTo(estimator.getDeclineRate());
+        assertThat(restored.getSamples()).isEqualTo(31);
+    }
+}
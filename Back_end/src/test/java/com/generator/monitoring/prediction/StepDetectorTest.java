@@ -0,0 +1,111 @@
+package com.generator.monitoring.prediction;
+
+import com.generator.monitoring.prediction.StepDetector.Step;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class StepDetectorTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private DeclineEstimator estimator;
+    private StepDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        estimator = new DeclineEstimator(2, 0.25);
+        detector = new StepDetector(estimator, 5, 3, Duration.ofMinutes(5));
+
+        // 30 minutes declining from 60 at 6 per hour
+        for (int minute = 0; minute <= 30; minute++) {
+            assertThat(detector.accept(at(minute), level(minute))).isNull();
+        }
+    }
+
+    @Test
+    void reportsRefuelOnceSettled() {
+        assertThat(detector.accept(at(31), 70)).isNull();
+        assertThat(detector.accept(at(32), 85)).isNull();
+        assertThat(detector.accept(at(33), 95)).isNull();
+
+        Step step = null;
+        for (int minute = 34; minute <= 38 && step == null; minute++) {
+            step = detector.accept(at(minute), 95);
+        }
+
+        assertThat(step).isNotNull();
+        assertThat(step.rise()).isTrue();
+        assertThat(step.startedAt()).isEqualTo(at(31));
+        assertThat(step.endedAt()).isEqualTo(at(33));
+        assertThat(step.levelBefore()).isCloseTo(level(31), within(0.01));
+        assertThat(step.levelAfter()).isEqualTo(95);
+        assertThat(estimator.getLastValue()).isEqualTo(95);
+    }
+
+    @Test
+    void dropsGlitch() {
+        assertThat(detector.accept(at(31), 0)).isNull();
+        assertThat(detector.accept(at(32), level(32))).isNull();
+        assertThat(detector.accept(at(33), level(33))).isNull();
+
+        assertThat(estimator.getLastValue()).isCloseTo(level(33), within(1e-9));
+        assertThat(estimator.getSamples()).isEqualTo(33);
+        assertThat(estimator.getDeclineRate()).isCloseTo(6, within(1e-6));
+    }
+
+    @Test
+    void reportsConfirmedDrop() {
+        assertThat(detector.accept(at(31), 30)).isNull();
+        assertThat(detector.accept(at(32), 30)).isNull();
+        Step step = detector.accept(at(33), 30);
+
+        assertThat(step).isNotNull();
+        assertThat(step.rise()).isFalse();
+        assertThat(step.startedAt()).isEqualTo(at(31));
+        assertThat(step.levelAfter()).isEqualTo(30);
+        assertThat(estimator.getSamples()).isEqualTo(3);
+    }
+
+    @Test
+    void idleGapIsNotAStep() {
+        // The fit would expect 30 less after five idle hours; the level did not move
+        int resumed = 30 + 5 * 60;
+        for (int minute = resumed; minute < resumed + 5; minute++) {
+            assertThat(detector.accept(at(minute), level(30))).isNull();
+        }
+
+        assertThat(estimator.getLastTimestamp()).isEqualTo(at(resumed + 4));
+        assertThat(estimator.getSamples()).isEqualTo(36);
+    }
+
+    @Test
+    void refuelAfterIdleGapIsMeasuredFromLastLevel() {
+        int resumed = 30 + 5 * 60;
+        assertThat(detector.accept(at(resumed), 95)).isNull();
+        assertThat(detector.accept(at(resumed + 1), 95)).isNull();
+        assertThat(detector.accept(at(resumed + 2), 95)).isNull();
+
+        Step step = null;
+        for (int minute = resumed + 3; minute <= resumed + 8 && step == null; minute++) {
+            step = detector.accept(at(minute), 95);
+        }
+
+        assertThat(step).isNotNull();
+        assertThat(step.rise()).isTrue();
+        assertThat(step.levelBefore()).isCloseTo(level(30), within(1e-9));
+    }
+
+    private static LocalDateTime at(int minute) {
+        return START.plusMinutes(minute);
+    }
+
+    private static double level(int minute) {
+        return 60 - 6 * minute / 60.0;
+    }
+}
@@ -0,0 +1,91 @@
+package com.generator.monitoring.service;
+
+import com.generator.monitoring.service.AlarmStateTracker.DeviceAlarmState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static com.generator.monitoring.service.AlarmStateTracker.ABOVE_MAX;
+import static com.generator.monitoring.service.AlarmStateTracker.BELOW_MIN;
+import static com.generator.monitoring.service.AlarmStateTracker.NORMAL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlarmStateTrackerTest {
+
+    // Limits 10 - 20 with a 2% hysteresis band, so a raised alarm clears at 19.8 or 10.2
+    private static final double MIN = 10;
+    private static final double MAX = 20;
+    private static final long HOLD_MS = 10_000;
+    private static final int KEY = 0;
+
+    private AlarmStateTracker tracker;
+    private DeviceAlarmState state;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new AlarmStateTracker();
+        ReflectionTestUtils.setField(tracker, "hysteresisFraction", 0.02);
+        ReflectionTestUtils.setField(tracker, "minHoldMs", HOLD_MS);
+        state = tracker.getState("GEN-001", 1);
+    }
+
+    @Test
+    void reportsNothingWhileInsideLimits() {
+        assertThat(update(15, 0)).isEqualTo(-1);
+        assertThat(update(MIN, 1000)).isEqualTo(-1);
+        assertThat(update(MAX, 2000)).isEqualTo(-1);
+    }
+
+    @Test
+    void raisesOnceWhenValueLeavesLimits() {
+        assertThat(update(25, 0)).isEqualTo(ABOVE_MAX);
+        assertThat(update(26, 1000)).isEqualTo(-1);
+        assertThat(update(30, 60_000)).isEqualTo(-1);
+    }
+
+    @Test
+    void raisesAgainWhenJumpingToOtherLimit() {
+        assertThat(update(25, 0)).isEqualTo(ABOVE_MAX);
+        assertThat(update(5, 1000)).isEqualTo(BELOW_MIN);
+    }
+
+    @Test
+    void staysRaisedInsideHysteresisBand() {
+        assertThat(update(25, 0)).isEqualTo(ABOVE_MAX);
+        assertThat(update(19.9, 20_000)).isEqualTo(-1);
+        assertThat(update(19.85, 30_000)).isEqualTo(-1);
+
+        assertThat(update(5, 0)).isEqualTo(BELOW_MIN);
+        assertThat(update(10.1, 20_000)).isEqualTo(-1);
+    }
+
+    @Test
+    void clearsOnceOutsideHysteresisBand() {
+        assertThat(update(25, 0)).isEqualTo(ABOVE_MAX);
+        assertThat(update(19.7, 20_000)).isEqualTo(NORMAL);
+        assertThat(update(19.7, 21_000)).isEqualTo(-1);
+
+        assertThat(update(5, 30_000)).isEqualTo(BELOW_MIN);
+        assertThat(update(10.3, 50_000)).isEqualTo(NORMAL);
+    }
+
+    @Test
+    void clearIsBlockedDuringHoldTime() {
+        assertThat(update(25, 0)).isEqualTo(ABOVE_MAX);
+        assertThat(update(15, 5_000)).isEqualTo(-1);
+        assertThat(update(15, HOLD_MS - 1)).isEqualTo(-1);
+        assertThat(update(15, HOLD_MS)).isEqualTo(NORMAL);
+    }
+
+    @Test
+    void holdTimeRestartsWhenJumpingToOtherLimit() {
+        assertThat(update(25, 0)).isEqualTo(ABOVE_MAX);
+        assertThat(update(5, 8_000)).isEqualTo(BELOW_MIN);
+        assertThat(update(15, 12_000)).isEqualTo(-1);
+        assertThat(update(15, 18_000)).isEqualTo(NORMAL);
+    }
+
+    private int update(double value, long now) {
+        return tracker.update(state, KEY, value, MIN, MAX, now);
+    }
+}
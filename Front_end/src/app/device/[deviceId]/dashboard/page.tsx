@@ -35,7 +35,7 @@ export default function DashboardPage() {
   const params = useParams();
   const router = useRouter();
   const deviceId = params.deviceId as string;
-  const { data, connected } = useWebSocket(deviceId);
+  const { data, activeAlarms, connected } = useWebSocket(deviceId);
   const [device, setDevice] = useState<Device | null>(null);
   const [history, setHistory] = useState<HistoricalData[]>([]);
   const canvasRef = useRef<HTMLCanvasElement>(null);
@@ -199,7 +199,7 @@ export default function DashboardPage() {
       message: msg,
       severity: 'WARNING' as const,
     })),
-    ...(data?.backendAlarms || []).map((alarm) => ({
+    ...activeAlarms.map((alarm) => ({
       message: alarm.message,
       severity: alarm.severity,
     })),
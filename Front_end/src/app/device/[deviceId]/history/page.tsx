@@ -434,7 +434,7 @@ export default function HistoryPage() {
     }
   };
 
-  const handleGeneratePdf = async () => {
+  const handleGeneratePdf = async (mode: 'table' | 'summary' = 'table') => {
     if (!startDate || !endDate || selectedParameters.length === 0) {
       setError('Please select dates and parameters first');
       return;
@@ -445,12 +445,22 @@ export default function HistoryPage() {
       const startTime = new Date(startDate).toISOString();
       const endTime = new Date(endDate).toISOString();
 
-      const blob = await historyApi.generatePdfReport({
+      // Reports render in the background; poll the job until the PDF is ready
+      let job = await historyApi.submitReportJob({
         deviceId,
         startTime,
         endTime,
         parameters: selectedParameters,
-      });
+      }, mode);
+      while (job.status === 'QUEUED' || job.status === 'RUNNING') {
+        await new Promise(resolve => setTimeout(resolve, 1000));
+        job = await historyApi.getReportJob(job.jobId);
+      }
+      if (job.status === 'FAILED') {
+        throw new Error(job.error || 'Failed to generate PDF report');
+      }
+
+      const blob = await historyApi.downloadReportJob(job.jobId);
 
       // Download the PDF
       const url = window.URL.createObjectURL(blob);
@@ -462,7 +472,7 @@ export default function HistoryPage() {
       window.URL.revokeObjectURL(url);
       document.body.removeChild(a);
     } catch (err: any) {
-      setError(err.response?.data?.message || 'Failed to generate PDF report');
+      setError(err.response?.data?.message || err.message || 'Failed to generate PDF report');
     } finally {
       setLoading(false);
     }
@@ -714,12 +724,20 @@ export default function HistoryPage() {
             </button>
 
             <button
-              onClick={handleGeneratePdf}
+              onClick={() => handleGeneratePdf('table')}
               disabled={loading}
               className="bg-[#1E40AF]/80 hover:bg-[#1E40AF] disabled:bg-gray-400 text-[#d9d9d9] px-6 py-2 rounded-md transition"
             >
               Generate PDF Report
             </button>
+
+            <button
+              onClick={() => handleGeneratePdf('summary')}
+              disabled={loading}
+              className="bg-[#1E40AF]/80 hover:bg-[#1E40AF] disabled:bg-gray-400 text-[#d9d9d9] px-6 py-2 rounded-md transition"
+            >
+              Summary PDF Report
+            </button>
           </div>
 
           {error && (
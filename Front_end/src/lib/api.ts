@@ -60,6 +60,16 @@ export const deviceApi = {
     return response.data;
   },
 
+  getLatestTelemetry: async (deviceId: string) => {
+    const response = await api.get(`/api/devices/${deviceId}/latest`);
+    return response.data;
+  },
+
+  getActiveAlarms: async (deviceId: string) => {
+    const response = await api.get(`/api/devices/${deviceId}/alarms/active`);
+    return response.data;
+  },
+
   getDeviceThresholds: async (deviceId: string) => {
     const response = await api.get(`/api/devices/${deviceId}/thresholds`);
     return response.data;
@@ -187,6 +197,62 @@ export const historyApi = {
     return response.data;
   },
 
+  // Column form: { rowCount, delta, timestamps: number[], columns: { [param]: (number | boolean | string | null)[] } }
+  getHistoryColumnar: async (
+    deviceId: string,
+    startTime: string,
+    endTime: string,
+    parameters?: string[],
+    delta: boolean = false
+  ) => {
+    const params = new URLSearchParams({
+      startTime,
+      endTime,
+      format: 'columnar',
+      delta: String(delta),
+    });
+    if (parameters && parameters.length > 0) {
+      parameters.forEach(param => params.append('parameters', param));
+    }
+    const response = await api.get(
+      `/api/history/data/${deviceId}?${params.toString()}`
+    );
+    return response.data;
+  },
+
+  queryHistoryPage: async (data: {
+    deviceId: string;
+    startTime: string;
+    endTime: string;
+    parameters?: string[];
+    cursor?: string | null;
+    limit?: number;
+  }) => {
+    const response = await api.post('/api/history/query/page', data);
+    return response.data;
+  },
+
+  getAggregatedHistory: async (
+    deviceId: string,
+    startTime: string,
+    endTime: string,
+    parameters: string[],
+    bucket: string = '1m',
+    fn: 'min' | 'max' | 'avg' | 'last' | 'count' = 'avg'
+  ) => {
+    const params = new URLSearchParams({
+      startTime,
+      endTime,
+      bucket,
+      function: fn,
+    });
+    parameters.forEach(param => params.append('parameters', param));
+    const response = await api.get(
+      `/api/history/aggregate/${deviceId}?${params.toString()}`
+    );
+    return response.data;
+  },
+
   generatePdfReport: async (data: {
     deviceId: string;
     startTime: string;
@@ -199,6 +265,28 @@ export const historyApi = {
     return response.data;
   },
 
+  submitReportJob: async (data: {
+    deviceId: string;
+    startTime: string;
+    endTime: string;
+    parameters: string[];
+  }, mode: 'table' | 'summary' = 'table') => {
+    const response = await api.post(`/api/history/report/jobs?mode=${mode}`, data);
+    return response.data;
+  },
+
+  getReportJob: async (jobId: string) => {
+    const response = await api.get(`/api/history/report/jobs/${jobId}`);
+    return response.data;
+  },
+
+  downloadReportJob: async (jobId: string) => {
+    const response = await api.get(`/api/history/report/jobs/${jobId}/pdf`, {
+      responseType: 'blob',
+    });
+    return response.data;
+  },
+
   getParameters: async () => {
     const response = await api.get('/api/history/parameters');
     return response.data;
@@ -214,6 +302,11 @@ export const historyApi = {
     return response.data;
   },
 
+  getCleanupStatus: async () => {
+    const response = await api.get('/api/history/cleanup/status');
+    return response.data;
+  },
+
   getRpmChartData: async (deviceId: string, date: string) => {
     const response = await api.get(`/api/history/rpm-chart/${deviceId}?date=${date}`);
     return response.data;
@@ -1,6 +1,7 @@
 import { useEffect, useRef, useState } from 'react';
 import { Client } from '@stomp/stompjs';
 import SockJS from 'sockjs-client';
+import { deviceApi } from './api';
 
 const WS_URL = process.env.NEXT_PUBLIC_WS_URL || 'http://localhost:8080/ws';
 
@@ -113,6 +114,8 @@ export interface AlarmData {
   severity: 'WARNING' | 'CRITICAL';
   value: number;
   timestamp: string;
+  label: string;
+  state: 'RAISED' | 'CLEARED';
 }
 
 export interface DeviceDataMessage {
@@ -120,12 +123,36 @@ export interface DeviceDataMessage {
   backendAlarms: AlarmData[];
 }
 
+const alarmKey = (alarm: AlarmData) => `${alarm.parameter}|${alarm.label}`;
+
 export const useWebSocket = (deviceId: string) => {
   const [data, setData] = useState<DeviceDataMessage | null>(null);
+  const [activeAlarms, setActiveAlarms] = useState<Record<string, AlarmData>>({});
   const [connected, setConnected] = useState(false);
   const clientRef = useRef<Client | null>(null);
 
+  // The backend only sends alarm transitions, so keep the raised alarms here
+  const applyAlarms = (alarms: AlarmData[]) => {
+    if (!alarms || alarms.length === 0) return;
+    setActiveAlarms((current) => {
+      const next = { ...current };
+      alarms.forEach((alarm) => {
+        if (alarm.state === 'CLEARED') {
+          delete next[alarmKey(alarm)];
+        } else {
+          next[alarmKey(alarm)] = alarm;
+        }
+      });
+      return next;
+    });
+  };
+
   useEffect(() => {
+    setActiveAlarms({});
+    deviceApi.getActiveAlarms(deviceId)
+      .then((alarms: AlarmData[]) => applyAlarms(alarms))
+      .catch((error) => console.error('Error loading active alarms:', error));
+
     const client = new Client({
       webSocketFactory: () => new SockJS(WS_URL),
       reconnectDelay: 5000,
@@ -143,6 +170,7 @@ export const useWebSocket = (deviceId: string) => {
           try {
             const parsedData = JSON.parse(message.body);
             setData(parsedData);
+            applyAlarms(parsedData.backendAlarms);
           } catch (error) {
             console.error('Error parsing WebSocket message:', error);
           }
@@ -168,5 +196,5 @@ export const useWebSocket = (deviceId: string) => {
     };
   }, [deviceId]);
 
-  return { data, connected };
+  return { data, activeAlarms: Object.values(activeAlarms), connected };
 };